@@ -8,6 +8,7 @@
 
 package com.anthonyfdev.dropdownviewexample;
 
+import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -15,16 +16,19 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.anthonyfdev.dropdownview.DropDownListAdapter;
+import com.anthonyfdev.dropdownview.DropDownTextView;
+
+import java.util.List;
+
 /**
  * @author Anthony Fermin (Fuzz)
  */
-public class DropDownAdapter extends RecyclerView.Adapter<DropDownAdapter.StandViewHolder> {
+public class DropDownAdapter extends DropDownListAdapter<Stand, DropDownAdapter.StandViewHolder> {
 
-    private final ViewActions actionViewDelegate;
-
-    public DropDownAdapter(final ViewActions actionViewDelegate) {
-        this.actionViewDelegate = actionViewDelegate;
-    }
+    private static final Object PAYLOAD_STATUS = new Object();
+    private static final int LABEL_TITLE = 0;
+    private static final int LABEL_STATUS = 1;
 
     @Override
     public StandViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -33,52 +37,68 @@ public class DropDownAdapter extends RecyclerView.Adapter<DropDownAdapter.StandV
     }
 
     @Override
-    public void onBindViewHolder(StandViewHolder holder, int position) {
-        holder.bind(position);
+    public long getStableId(@NonNull Stand stand) {
+        return stand.getId();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StandViewHolder holder, @NonNull Stand stand, boolean isSelected) {
+        bindLabel(holder.standTitleTV, stand, LABEL_TITLE);
+        bindStatus(holder, stand, isSelected);
+    }
+
+    @Override
+    public void onBindPlaceholderViewHolder(@NonNull StandViewHolder holder, int position) {
+        holder.bindPlaceholder();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull StandViewHolder holder, @NonNull Stand stand, boolean isSelected, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_STATUS) || payloads.contains(PAYLOAD_SELECTION)) {
+            bindStatus(holder, stand, isSelected);
+        } else {
+            onBindViewHolder(holder, stand, isSelected);
+        }
     }
 
     @Override
-    public int getItemCount() {
-        return MainActivity.NUM_OF_STANDS;
+    public CharSequence getItemLabel(@NonNull Stand stand, int labelIndex) {
+        // Laid out on a background thread ahead of binding
+        return labelIndex == LABEL_TITLE ? stand.getTitle() : stand.getStatus();
     }
 
-    class StandViewHolder extends RecyclerView.ViewHolder {
+    @Override
+    public Object getChangePayload(@NonNull Stand oldStand, @NonNull Stand newStand) {
+        return oldStand.getTitle().equals(newStand.getTitle()) ? PAYLOAD_STATUS : null;
+    }
 
-        private final TextView standTitleTV;
-        private final TextView standStatusTV;
+    private void bindStatus(@NonNull StandViewHolder holder, @NonNull Stand stand, boolean isSelected) {
+        bindLabel(holder.standStatusTV, stand, LABEL_STATUS);
+        holder.itemView.setSelected(isSelected);
+    }
+
+    @Override
+    public void onBindHeaderView(@NonNull View headerView, @NonNull Stand selectedStand) {
+        ((TextView) headerView.findViewById(R.id.selected_stand_title)).setText(selectedStand.getTitle());
+        ((TextView) headerView.findViewById(R.id.selected_stand_status)).setText(selectedStand.getStatus());
+    }
 
-        public StandViewHolder(View itemView) {
+    static class StandViewHolder extends RecyclerView.ViewHolder {
+
+        private final DropDownTextView standTitleTV;
+        private final DropDownTextView standStatusTV;
+
+        StandViewHolder(View itemView) {
             super(itemView);
-            standTitleTV = (TextView) itemView.findViewById(R.id.cell_stand_title);
-            standStatusTV = (TextView) itemView.findViewById(R.id.cell_stand_status);
+            standTitleTV = (DropDownTextView) itemView.findViewById(R.id.cell_stand_title);
+            standStatusTV = (DropDownTextView) itemView.findViewById(R.id.cell_stand_status);
             itemView.setBackgroundDrawable(ContextCompat.getDrawable(itemView.getContext(), R.drawable.stand_drop_down_selector));
-            itemView.setOnClickListener(standViewItemClickListener);
         }
 
-        public void bind(int position) {
-            standTitleTV.setText(actionViewDelegate.getStandTitle(position));
-            standStatusTV.setText(actionViewDelegate.getStandStatus(position));
-            itemView.setSelected(actionViewDelegate.getSelectedStand() == position);
+        void bindPlaceholder() {
+            standTitleTV.setText(null);
+            standStatusTV.setText(null);
+            itemView.setSelected(false);
         }
-
-        private final View.OnClickListener standViewItemClickListener = new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                int lastSelectedPosition = actionViewDelegate.getSelectedStand();
-                actionViewDelegate.setSelectedStand(getAdapterPosition());
-                notifyItemChanged(lastSelectedPosition);
-                notifyItemChanged(getAdapterPosition());
-                actionViewDelegate.collapseDropDown();
-            }
-        };
-    }
-
-    interface ViewActions {
-        void collapseDropDown();
-        void setSelectedStand(int standId);
-        String getStandTitle(int standId);
-        String getStandStatus(int standId);
-        int getSelectedStand();
     }
 }
-
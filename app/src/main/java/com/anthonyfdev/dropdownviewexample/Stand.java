@@ -0,0 +1,59 @@
+/*
+ * Apache DropDownView
+ *
+ * Copyright 2017 The Apache Software Foundation
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownviewexample;
+
+/**
+ * An immutable stand shown in the drop down.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class Stand {
+
+    private final int id;
+    private final String title;
+    private final String status;
+
+    Stand(int id, String title, String status) {
+        this.id = id;
+        this.title = title;
+        this.status = status;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Stand stand = (Stand) o;
+        return id == stand.id && title.equals(stand.title) && status.equals(stand.status);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id;
+        result = 31 * result + title.hashCode();
+        result = 31 * result + status.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Apache DropDownView
+ *
+ * Copyright 2017 The Apache Software Foundation
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownviewexample;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.anthonyfdev.dropdownview.DropDownDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the stands on background threads, like a database or a network cache would.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class StandDataSource implements DropDownDataSource<Stand> {
+
+    private static final int NUM_OF_STANDS = 4;
+    private static final String[] WAIT_TIMES = new String[] {"3 minute wait", "Closed", "No wait time", "10 minute wait"};
+
+    private final Context context;
+
+    StandDataSource(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public int loadCount() {
+        return NUM_OF_STANDS;
+    }
+
+    @NonNull
+    @Override
+    public List<Stand> loadRange(int startPosition, int count) {
+        List<Stand> stands = new ArrayList<>(count);
+        for (int i = startPosition; i < startPosition + count; i++) {
+            stands.add(new Stand(i, getStandTitle(i), WAIT_TIMES[i]));
+        }
+        return stands;
+    }
+
+    /**
+     * Safe to call from any thread.
+     */
+    private String getStandTitle(int standId) {
+        String title = "";
+        switch (standId) {
+            case 0:
+                title = context.getString(R.string.standBrooklynLemonade);
+                break;
+            case 1:
+                title = context.getString(R.string.standManhattanBourjeeSliders);
+                break;
+            case 2:
+                title = context.getString(R.string.standQueensAndCakes);
+                break;
+            case 3:
+                title = context.getString(R.string.standBronxTea);
+                break;
+        }
+        return title;
+    }
+}
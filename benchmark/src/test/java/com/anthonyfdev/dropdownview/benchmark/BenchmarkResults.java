@@ -0,0 +1,110 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Collects benchmark results, checks them against the limits in <code>thresholds.properties</code>
+ * and writes them as JSON to <code>build/benchmark/results.json</code>.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+final class BenchmarkResults {
+
+    private final Properties thresholds = new Properties();
+    private final Map<String, Long> results = new LinkedHashMap<>();
+    private final List<String> failures = new ArrayList<>();
+
+    BenchmarkResults() {
+        String path = System.getProperty("benchmark.thresholds", "thresholds.properties");
+        InputStream in = null;
+        try {
+            in = new FileInputStream(path);
+            thresholds.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't read benchmark thresholds from " + path, e);
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Records a result, remembering a failure if it is over its limit.
+     */
+    void record(String name, long value) {
+        results.put(name, value);
+        String threshold = thresholds.getProperty(name);
+        if (threshold != null && value > Long.parseLong(threshold.trim())) {
+            failures.add(name + " = " + value + ", limit is " + threshold.trim());
+        }
+    }
+
+    /**
+     * @return the failures recorded so far, empty if every result is within its limit.
+     */
+    List<String> getFailures() {
+        return failures;
+    }
+
+    void write() throws IOException {
+        File outputDir = new File(System.getProperty("benchmark.outputDir", "build/benchmark"));
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Couldn't create " + outputDir);
+        }
+        StringBuilder json = new StringBuilder("{\n  \"results\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> result : results.entrySet()) {
+            json.append(separator).append("    \"").append(result.getKey()).append("\": ").append(result.getValue());
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"failures\": [");
+        separator = "\n";
+        for (String failure : failures) {
+            json.append(separator).append("    \"").append(failure).append('"');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        Writer writer = new FileWriter(new File(outputDir, "results.json"));
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread.
+     */
+    static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void close(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+/**
+ * A {@link FrameLayout} that counts its measure and layout passes.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class CountingFrameLayout extends FrameLayout {
+
+    int measureCount;
+    int layoutCount;
+
+    CountingFrameLayout(Context context) {
+        super(context);
+    }
+
+    void resetCounts() {
+        measureCount = 0;
+        layoutCount = 0;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        measureCount++;
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        layoutCount++;
+        super.onLayout(changed, left, top, right, bottom);
+    }
+}
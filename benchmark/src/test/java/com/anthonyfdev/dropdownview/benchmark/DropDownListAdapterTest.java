@@ -0,0 +1,208 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.anthonyfdev.dropdownview.DropDownDataSource;
+import com.anthonyfdev.dropdownview.DropDownView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the notifications and the items of {@link com.anthonyfdev.dropdownview.DropDownListAdapter}
+ * for diffs, selections, updates while collapsed and paging.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DropDownListAdapterTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private Activity activity;
+    private FrameLayout root;
+    private DropDownView dropDownView;
+    private TextView headerView;
+    private NamedItemAdapter adapter;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        dropDownView = new DropDownView(activity);
+        headerView = new TextView(activity);
+        dropDownView.setHeaderView(headerView);
+        root = new FrameLayout(activity);
+        root.addView(dropDownView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        activity.setContentView(root);
+        // Work posted from the background threads waits for the test to run the looper
+        ShadowLooper.pauseMainLooper();
+        adapter = new NamedItemAdapter();
+        observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void setItemsDiffsInTheBackground() throws InterruptedException {
+        adapter.setItems(items("a", "b", "c"));
+        assertEquals(Collections.singletonList("reset"), observer.events);
+        observer.events.clear();
+
+        List<NamedItem> newItems = Arrays.asList(new NamedItem(1, "a"), new NamedItem(3, "c2"), new NamedItem(4, "d"));
+        adapter.setItems(newItems);
+        // Made while the diff runs, the diffed items mustn't bring the old version back
+        adapter.updateItem(new NamedItem(4, "d2"));
+        assertEquals(items("a", "b", "c"), adapter.getItems());
+
+        observer.awaitEvents(4);
+        assertEquals(Arrays.asList("inserted 3 1", "changed 2 1 name", "removed 1 1", "changed 2 1 name"), observer.events);
+        assertEquals(Arrays.asList(new NamedItem(1, "a"), new NamedItem(3, "c2"), new NamedItem(4, "d2")), adapter.getItems());
+    }
+
+    @Test
+    public void selectionRebindsRowsAndHeader() {
+        dropDownView.setAdapter(adapter);
+        adapter.setItems(items("a", "b", "c"));
+        dropDownView.setExpanded(true, false);
+        settle();
+        observer.events.clear();
+
+        adapter.setSelectedItemId(2);
+        assertEquals(Collections.singletonList("changed 1 1 selection"), observer.events);
+        assertEquals("b", headerView.getText().toString());
+
+        adapter.setSelectedItemId(3);
+        assertEquals(Arrays.asList("changed 1 1 selection", "changed 1 1 selection", "changed 2 1 selection"), observer.events);
+        assertEquals("c", headerView.getText().toString());
+
+        // An update to the selected item rebinds the header too
+        int headerBindCount = adapter.headerBindCount;
+        adapter.updateItem(new NamedItem(3, "c2"));
+        settle();
+        assertEquals("changed 2 1 name", observer.events.get(observer.events.size() - 1));
+        assertEquals(headerBindCount + 1, adapter.headerBindCount);
+        assertEquals("c2", headerView.getText().toString());
+    }
+
+    @Test
+    public void changesWhileCollapsedAreSentOnExpand() {
+        dropDownView.setAdapter(adapter);
+        adapter.setItems(items("a", "b", "c"));
+        settle();
+        observer.events.clear();
+
+        adapter.updateItem(new NamedItem(1, "a2"));
+        settle();
+        adapter.setSelectedItemId(3);
+        adapter.updateItem(new NamedItem(3, "c2"));
+        settle();
+        assertTrue(observer.events.toString(), observer.events.isEmpty());
+        assertEquals(Arrays.asList(new NamedItem(1, "a2"), new NamedItem(2, "b"), new NamedItem(3, "c2")), adapter.getItems());
+        assertEquals("c2", headerView.getText().toString());
+
+        // A selection and a name change of the same row merge into a full rebind
+        dropDownView.setExpanded(true, false);
+        assertEquals(Arrays.asList("changed 0 1 name", "changed 2 1"), observer.events);
+    }
+
+    @Test
+    public void dataSourceLoadsPagesAndRetriesShortOnes() throws InterruptedException {
+        // Loads once attached, a list without a layout manager binds no rows that would load pages
+        RecyclerView listView = new RecyclerView(activity);
+        listView.setAdapter(adapter);
+        root.addView(listView);
+        adapter.setDataSource(new ShortPageDataSource(45, 15), PAGE_SIZE);
+        observer.events.clear();
+
+        // The first page comes back short, its end is asked for again after a delay
+        observer.awaitEvents(3);
+        assertEquals(Arrays.asList("reset", "changed 0 15", "changed 15 5"), observer.events);
+        assertEquals(45, adapter.getItemCount());
+        assertFalse(adapter.isPlaceholder(PAGE_SIZE - 1));
+        assertTrue(adapter.isPlaceholder(PAGE_SIZE));
+
+        // Binding a row past the middle of its page loads the next page too
+        NamedItemAdapter.NamedItemViewHolder holder = adapter.createViewHolder(new FrameLayout(activity), 0);
+        adapter.bindViewHolder(holder, 30);
+        observer.awaitEvents(6);
+        assertEquals(6, observer.events.size());
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            assertFalse(adapter.isPlaceholder(i));
+            assertEquals(i, adapter.getItemId(i));
+        }
+    }
+
+    /**
+     * Items with the ids 1, 2, 3 and so on.
+     */
+    private static List<NamedItem> items(String... names) {
+        List<NamedItem> items = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            items.add(new NamedItem(i + 1, names[i]));
+        }
+        return items;
+    }
+
+    private static void settle() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    /**
+     * Returns at most a fixed number of items per call, like a network source with a page size
+     * smaller than the list's.
+     */
+    private static class ShortPageDataSource implements DropDownDataSource<NamedItem> {
+
+        private final int itemCount;
+        private final int maxRangeCount;
+
+        ShortPageDataSource(int itemCount, int maxRangeCount) {
+            this.itemCount = itemCount;
+            this.maxRangeCount = maxRangeCount;
+        }
+
+        @Override
+        public int loadCount() {
+            return itemCount;
+        }
+
+        @NonNull
+        @Override
+        public List<NamedItem> loadRange(int startPosition, int count) {
+            List<NamedItem> items = new ArrayList<>();
+            for (int i = startPosition; i < startPosition + Math.min(count, maxRangeCount); i++) {
+                items.add(new NamedItem(i, "item " + i));
+            }
+            return items;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.anthonyfdev.dropdownview.DropDownTreeAdapter;
+import com.anthonyfdev.dropdownview.DropDownTreeDataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that expanding and collapsing the nodes of a {@link DropDownTreeAdapter} only inserts and
+ * removes the ranges of their descendants.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DropDownTreeAdapterTest {
+
+    private static final NamedItem VENUE_A = new NamedItem(1, "venue a");
+    private static final NamedItem VENUE_B = new NamedItem(2, "venue b");
+    private static final NamedItem SECTION_A1 = new NamedItem(11, "section a1");
+    private static final NamedItem SECTION_A2 = new NamedItem(12, "section a2");
+    private static final NamedItem STAND_A1 = new NamedItem(111, "stand a1");
+
+    private NamedItemTreeAdapter adapter;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() {
+        // Work posted from the background threads waits for the test to run the looper
+        ShadowLooper.pauseMainLooper();
+        adapter = new NamedItemTreeAdapter();
+        observer = new RecordingObserver();
+        adapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void expandingAndCollapsingNodesChangesOnlyTheirRanges() throws InterruptedException {
+        MapTreeDataSource dataSource = new MapTreeDataSource();
+        dataSource.put(null, VENUE_A, VENUE_B);
+        dataSource.put(VENUE_A, SECTION_A1, SECTION_A2);
+        dataSource.put(SECTION_A1, STAND_A1);
+        adapter.setTreeDataSource(dataSource);
+        observer.awaitEvents(2);
+        assertEquals(Arrays.asList("reset", "inserted 0 2"), observer.events);
+        assertEquals(Arrays.asList(1L, 2L), getItemIds());
+        observer.events.clear();
+
+        // The children load in the background, the node shows it is expanding meanwhile
+        adapter.expandNode(VENUE_A);
+        observer.awaitEvents(3);
+        assertEquals(Arrays.asList("changed 0 1 nodeState", "inserted 1 2", "changed 0 1 nodeState"), observer.events);
+        observer.events.clear();
+
+        adapter.expandNode(SECTION_A1);
+        observer.awaitEvents(3);
+        assertEquals(Arrays.asList("changed 1 1 nodeState", "inserted 2 1", "changed 1 1 nodeState"), observer.events);
+        assertEquals(Arrays.asList(1L, 11L, 111L, 12L, 2L), getItemIds());
+        assertEquals(2, adapter.getDepth(2));
+        observer.events.clear();
+
+        adapter.collapseNode(VENUE_A);
+        assertEquals(Arrays.asList("removed 1 3", "changed 0 1 nodeState"), observer.events);
+        assertEquals(Arrays.asList(1L, 2L), getItemIds());
+        observer.events.clear();
+
+        // Loaded children are kept, and the expanded section shows its stand again
+        adapter.expandNode(VENUE_A);
+        assertEquals(Arrays.asList("inserted 1 3", "changed 0 1 nodeState"), observer.events);
+        assertEquals(Arrays.asList(1L, 11L, 111L, 12L, 2L), getItemIds());
+        assertEquals(2, adapter.getDepth(2));
+    }
+
+    private List<Long> getItemIds() {
+        List<Long> itemIds = new ArrayList<>(adapter.getItemCount());
+        for (int i = 0; i < adapter.getItemCount(); i++) {
+            itemIds.add(adapter.getItemId(i));
+        }
+        return itemIds;
+    }
+
+    private static class NamedItemTreeAdapter extends DropDownTreeAdapter<NamedItem, NamedItemAdapter.NamedItemViewHolder> {
+
+        @Override
+        public NamedItemAdapter.NamedItemViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new NamedItemAdapter.NamedItemViewHolder(new TextView(parent.getContext()));
+        }
+
+        @Override
+        public long getStableId(@NonNull NamedItem item) {
+            return item.id;
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull NamedItemAdapter.NamedItemViewHolder holder, @NonNull NamedItem item, boolean isSelected) {
+            holder.textView.setText(item.name);
+        }
+    }
+
+    /**
+     * Children by parent id, a null parent for the root nodes.
+     */
+    private static class MapTreeDataSource implements DropDownTreeDataSource<NamedItem> {
+
+        private final Map<Long, List<NamedItem>> childrenById = new HashMap<>();
+
+        void put(@Nullable NamedItem parent, NamedItem... children) {
+            childrenById.put(parent != null ? parent.id : null, Arrays.asList(children));
+        }
+
+        @NonNull
+        @Override
+        public List<NamedItem> loadChildren(@Nullable NamedItem parent) {
+            return childrenById.get(parent != null ? parent.id : null);
+        }
+
+        @Override
+        public boolean hasChildren(@NonNull NamedItem node) {
+            return childrenById.containsKey(node.id);
+        }
+    }
+}
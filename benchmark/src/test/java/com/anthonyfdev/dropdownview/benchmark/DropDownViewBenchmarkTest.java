@@ -0,0 +1,201 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.anthonyfdev.dropdownview.DropDownView;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures construction, layout passes, allocations and list binding of {@link DropDownView} on the
+ * JVM. Each result is checked against <code>thresholds.properties</code>.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class DropDownViewBenchmarkTest {
+
+    private static final int WARM_UP_ITERATIONS = 20;
+    private static final int CONSTRUCTION_ITERATIONS = 200;
+    private static final int TOGGLE_ITERATIONS = 20;
+    private static final int HEADER_HEIGHT = 100;
+    private static final int EXPANDED_ROWS = 10;
+    private static final int MAX_EXPANDED_HEIGHT = 1000;
+    private static final BenchmarkResults RESULTS = new BenchmarkResults();
+
+    private Activity activity;
+    private DropDownView dropDownView;
+    private CountingFrameLayout headerView;
+    private CountingFrameLayout expandedView;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        dropDownView = new DropDownView(activity);
+        headerView = new CountingFrameLayout(activity);
+        headerView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, HEADER_HEIGHT));
+        expandedView = new CountingFrameLayout(activity);
+        for (int i = 0; i < EXPANDED_ROWS; i++) {
+            TextView row = new TextView(activity);
+            row.setText(String.valueOf(i));
+            expandedView.addView(row);
+        }
+        dropDownView.setHeaderView(headerView);
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(dropDownView, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        activity.setContentView(root);
+        settle();
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        RESULTS.write();
+    }
+
+    @Test
+    public void construction() {
+        int failures = RESULTS.getFailures().size();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            new DropDownView(activity);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < CONSTRUCTION_ITERATIONS; i++) {
+            new DropDownView(activity);
+        }
+        long meanNanos = (System.nanoTime() - start) / CONSTRUCTION_ITERATIONS;
+        RESULTS.record("construction.meanMicros", TimeUnit.NANOSECONDS.toMicros(meanNanos));
+        assertNoNewFailures(failures);
+    }
+
+    @Test
+    public void layoutPassesWithTransition() {
+        recordLayoutPasses(DropDownView.ANIMATION_MODE_TRANSITION, "transition");
+    }
+
+    @Test
+    public void layoutPassesWithClipBounds() {
+        recordLayoutPasses(DropDownView.ANIMATION_MODE_CLIP_BOUNDS, "clipBounds");
+    }
+
+    @Test
+    public void allocationsPerToggle() {
+        int failures = RESULTS.getFailures().size();
+        dropDownView.setAnimationMode(DropDownView.ANIMATION_MODE_CLIP_BOUNDS);
+        dropDownView.setExpandedView(expandedView);
+        settle();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            toggle();
+        }
+        long allocatedBytes = BenchmarkResults.allocatedBytes();
+        for (int i = 0; i < TOGGLE_ITERATIONS; i++) {
+            toggle();
+        }
+        allocatedBytes = BenchmarkResults.allocatedBytes() - allocatedBytes;
+        RESULTS.record("clipBounds.toggle.allocatedBytes", allocatedBytes / TOGGLE_ITERATIONS);
+        assertNoNewFailures(failures);
+    }
+
+    @Test
+    public void bindList() {
+        int failures = RESULTS.getFailures().size();
+        dropDownView.setAnimationMode(DropDownView.ANIMATION_MODE_CLIP_BOUNDS);
+        dropDownView.setMaxExpandedHeight(MAX_EXPANDED_HEIGHT);
+        for (int itemCount : new int[]{10, 1000, 100000}) {
+            List<Integer> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(i);
+            }
+            NumberAdapter adapter = new NumberAdapter();
+            long start = System.nanoTime();
+            dropDownView.setAdapter(adapter);
+            adapter.setItems(items);
+            dropDownView.expandDropDown();
+            settle();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            RESULTS.record("bindList." + itemCount + ".millis", millis);
+            RESULTS.record("bindList." + itemCount + ".boundRows", adapter.bindCount);
+            dropDownView.collapseDropDown();
+            settle();
+        }
+        assertNoNewFailures(failures);
+    }
+
+    private void recordLayoutPasses(@DropDownView.AnimationMode int animationMode, String prefix) {
+        int failures = RESULTS.getFailures().size();
+        dropDownView.setAnimationMode(animationMode);
+        dropDownView.setExpandedView(expandedView);
+        settle();
+        // The first expand may still create and measure the content
+        toggle();
+
+        resetCounts();
+        dropDownView.expandDropDown();
+        settle();
+        recordCounts(prefix + ".expand");
+
+        resetCounts();
+        dropDownView.collapseDropDown();
+        settle();
+        recordCounts(prefix + ".collapse");
+        assertNoNewFailures(failures);
+    }
+
+    private void toggle() {
+        dropDownView.expandDropDown();
+        settle();
+        dropDownView.collapseDropDown();
+        settle();
+    }
+
+    private void resetCounts() {
+        headerView.resetCounts();
+        expandedView.resetCounts();
+    }
+
+    private void recordCounts(String prefix) {
+        RESULTS.record(prefix + ".headerMeasures", headerView.measureCount);
+        RESULTS.record(prefix + ".headerLayouts", headerView.layoutCount);
+        RESULTS.record(prefix + ".expandedMeasures", expandedView.measureCount);
+        RESULTS.record(prefix + ".expandedLayouts", expandedView.layoutCount);
+    }
+
+    /**
+     * Runs queued work, animations and layout passes until the drop down is idle.
+     */
+    private static void settle() {
+        ShadowLooper.idleMainLooper(1, TimeUnit.SECONDS);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private static void assertNoNewFailures(int failuresBefore) {
+        List<String> failures = RESULTS.getFailures();
+        assertEquals(failures.subList(failuresBefore, failures.size()).toString(), failuresBefore, failures.size());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+/**
+ * An immutable item whose name can change while its id stays.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class NamedItem {
+
+    /**
+     * Payload of the changes to the name.
+     */
+    static final String PAYLOAD_NAME = "name";
+
+    final long id;
+    final String name;
+
+    NamedItem(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        NamedItem item = (NamedItem) o;
+        return id == item.id && name.equals(item.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (id ^ (id >>> 32)) + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + name;
+    }
+}
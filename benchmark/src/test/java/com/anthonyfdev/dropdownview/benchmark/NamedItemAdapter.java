@@ -0,0 +1,65 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.anthonyfdev.dropdownview.DropDownListAdapter;
+
+/**
+ * Shows the names of {@link NamedItem}s, in the rows and in a {@link TextView} header, and sends
+ * {@link NamedItem#PAYLOAD_NAME} when a name changes.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class NamedItemAdapter extends DropDownListAdapter<NamedItem, NamedItemAdapter.NamedItemViewHolder> {
+
+    int headerBindCount;
+
+    @Override
+    public NamedItemViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new NamedItemViewHolder(new TextView(parent.getContext()));
+    }
+
+    @Override
+    public long getStableId(@NonNull NamedItem item) {
+        return item.id;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NamedItemViewHolder holder, @NonNull NamedItem item, boolean isSelected) {
+        holder.textView.setText(item.name);
+        holder.textView.setSelected(isSelected);
+    }
+
+    @Override
+    public void onBindHeaderView(@NonNull View headerView, @NonNull NamedItem selectedItem) {
+        headerBindCount++;
+        ((TextView) headerView).setText(selectedItem.name);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull NamedItem oldItem, @NonNull NamedItem newItem) {
+        return oldItem.name.equals(newItem.name) ? null : NamedItem.PAYLOAD_NAME;
+    }
+
+    static class NamedItemViewHolder extends RecyclerView.ViewHolder {
+
+        final TextView textView;
+
+        NamedItemViewHolder(TextView itemView) {
+            super(itemView);
+            textView = itemView;
+        }
+    }
+}
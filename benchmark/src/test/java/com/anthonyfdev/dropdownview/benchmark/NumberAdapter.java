@@ -0,0 +1,57 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.anthonyfdev.dropdownview.DropDownListAdapter;
+
+/**
+ * Shows numbers as single line rows of a fixed height and counts its binds.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class NumberAdapter extends DropDownListAdapter<Integer, NumberAdapter.NumberViewHolder> {
+
+    private static final int ROW_HEIGHT = 48;
+
+    int bindCount;
+
+    @Override
+    public NumberViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        TextView textView = new TextView(parent.getContext());
+        textView.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ROW_HEIGHT));
+        return new NumberViewHolder(textView);
+    }
+
+    @Override
+    public long getStableId(@NonNull Integer item) {
+        return item;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NumberViewHolder holder, @NonNull Integer item, boolean isSelected) {
+        bindCount++;
+        holder.textView.setText(String.valueOf(item));
+        holder.textView.setSelected(isSelected);
+    }
+
+    static class NumberViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView textView;
+
+        NumberViewHolder(TextView itemView) {
+            super(itemView);
+            textView = itemView;
+        }
+    }
+}
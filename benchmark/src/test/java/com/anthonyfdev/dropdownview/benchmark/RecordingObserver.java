@@ -0,0 +1,84 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview.benchmark;
+
+import android.support.v7.widget.RecyclerView;
+
+import com.anthonyfdev.dropdownview.DropDownListAdapter;
+import com.anthonyfdev.dropdownview.DropDownTreeAdapter;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records the notifications of an adapter as strings such as <code>"changed 2 1 name"</code>, and
+ * waits for the ones sent from background threads.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    final List<String> events = new ArrayList<>();
+
+    /**
+     * Runs the main looper until the adapter sent the given number of notifications in all. The
+     * main looper must be paused, so work posted from background threads waits for this.
+     */
+    void awaitEvents(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        while (events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        }
+        assertTrue(events.toString(), events.size() >= count);
+    }
+
+    @Override
+    public void onChanged() {
+        events.add("reset");
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        events.add("changed " + positionStart + " " + itemCount + getPayloadName(payload));
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        events.add("inserted " + positionStart + " " + itemCount);
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        events.add("removed " + positionStart + " " + itemCount);
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        events.add("moved " + fromPosition + " " + toPosition + " " + itemCount);
+    }
+
+    private static String getPayloadName(Object payload) {
+        if (payload == null) {
+            return "";
+        } else if (payload == DropDownListAdapter.PAYLOAD_SELECTION) {
+            return " selection";
+        } else if (payload == DropDownTreeAdapter.PAYLOAD_NODE_STATE) {
+            return " nodeState";
+        }
+        return " " + payload;
+    }
+}
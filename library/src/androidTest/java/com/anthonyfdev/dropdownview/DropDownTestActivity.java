@@ -0,0 +1,19 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.app.Activity;
+
+/**
+ * An empty window for tests that need the drop down attached, like the ones running transitions.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+public class DropDownTestActivity extends Activity {
+}
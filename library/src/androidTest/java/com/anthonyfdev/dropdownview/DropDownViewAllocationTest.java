@@ -0,0 +1,175 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that expanding and collapsing with {@link DropDownView#ANIMATION_MODE_CLIP_BOUNDS}
+ * allocates nothing once the drop down has been expanded once, on every frame of the animations:
+ * the progress, the clip, the published progress and the scrim drawn on each frame.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation")
+public class DropDownViewAllocationTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int TOGGLE_ITERATIONS = 10;
+    private static final long ANIMATION_TIMEOUT_SECONDS = 5L;
+
+    private Instrumentation instrumentation;
+    private DropDownView dropDownView;
+    private AllocationCounter counter;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dropDownView = new DropDownView(InstrumentationRegistry.getTargetContext());
+                dropDownView.setAnimationMode(DropDownView.ANIMATION_MODE_CLIP_BOUNDS);
+                // Automatic motion could switch to a reduced one on a slow test device
+                dropDownView.setMotionMode(DropDownView.MOTION_MODE_FULL);
+                dropDownView.setScrimEnabled(true);
+                View headerView = new View(dropDownView.getContext());
+                headerView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 100));
+                dropDownView.setHeaderView(headerView);
+                FrameLayout expandedView = new FrameLayout(dropDownView.getContext());
+                expandedView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+                dropDownView.setExpandedView(expandedView);
+                counter = new AllocationCounter(dropDownView);
+                dropDownView.setDropDownProgressListener(counter);
+                layout();
+            }
+        });
+    }
+
+    @Test
+    public void toggleAllocatesNothingAfterFirstExpand() throws InterruptedException {
+        // Warm up: the first expand measures the content and sets up the clip
+        toggle(false);
+
+        for (int i = 0; i < TOGGLE_ITERATIONS; i++) {
+            toggle(true);
+        }
+        assertTrue("No animation frames were counted", counter.frameCount > 0);
+        assertEquals("Frames that allocated objects", 0, counter.framesWithAllocations);
+        assertEquals("Objects allocated while toggling", 0, counter.allocations);
+    }
+
+    private void toggle(boolean isCounted) throws InterruptedException {
+        animateTo(true, isCounted);
+        animateTo(false, isCounted);
+    }
+
+    /**
+     * Animates to the state and waits for the last frame, counting the allocations of every frame
+     * in between.
+     */
+    private void animateTo(final boolean expanded, final boolean isCounted) throws InterruptedException {
+        counter.settled = new CountDownLatch(1);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                if (isCounted) {
+                    counter.start();
+                }
+                dropDownView.setExpanded(expanded, true, counter);
+            }
+        });
+        assertTrue("The drop down didn't settle", counter.settled.await(ANIMATION_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout();
+            }
+        });
+    }
+
+    private void layout() {
+        // The drop down isn't attached to a window, lay it out like a parent would
+        dropDownView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+        dropDownView.layout(0, 0, dropDownView.getMeasuredWidth(), dropDownView.getMeasuredHeight());
+    }
+
+    /**
+     * Draws the drop down on every published frame, the way the window would, and counts what the
+     * main thread allocated since the previous frame. Everything it needs is allocated up front.
+     */
+    private static class AllocationCounter implements DropDownView.DropDownProgressListener,
+            DropDownView.OnStateReachedListener {
+
+        private final View view;
+        private final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        CountDownLatch settled;
+        boolean isCounting;
+        int frameCount;
+        int framesWithAllocations;
+        long allocations;
+
+        AllocationCounter(View view) {
+            this.view = view;
+        }
+
+        void start() {
+            isCounting = true;
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+        }
+
+        @Override
+        public void onDropDownProgress(float progress, @DropDownView.DropDownState int state) {
+            if (!isCounting) {
+                return;
+            }
+            view.draw(canvas);
+            int frameAllocations = Debug.getThreadAllocCount();
+            Debug.resetThreadAllocCount();
+            frameCount++;
+            if (frameAllocations > 0) {
+                framesWithAllocations++;
+                allocations += frameAllocations;
+            }
+        }
+
+        @Override
+        public void onStateReached(boolean expanded) {
+            if (isCounting) {
+                allocations += Debug.getThreadAllocCount();
+                Debug.stopAllocCounting();
+                isCounting = false;
+            }
+            settled.countDown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the header and the scrim work as clicks, so keyboards and accessibility services
+ * can expand and collapse the drop down without touching it.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(AndroidJUnit4.class)
+public class DropDownViewClickTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    private DropDownView dropDownView;
+    private View headerView;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dropDownView = new DropDownView(InstrumentationRegistry.getTargetContext());
+                // Without animations the state is reached as soon as it is requested
+                dropDownView.setMotionMode(DropDownView.MOTION_MODE_NONE);
+                dropDownView.setScrimEnabled(true);
+                headerView = new View(dropDownView.getContext());
+                headerView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 100));
+                dropDownView.setHeaderView(headerView);
+                FrameLayout expandedView = new FrameLayout(dropDownView.getContext());
+                expandedView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+                dropDownView.setExpandedView(expandedView);
+                layout();
+            }
+        });
+    }
+
+    @Test
+    @UiThreadTest
+    public void headerIsClickableAndFocusable() {
+        assertTrue(headerView.isClickable());
+        assertTrue(headerView.isFocusable());
+    }
+
+    @Test
+    @UiThreadTest
+    public void headerClickTogglesDropDown() {
+        assertTrue(headerView.performClick());
+        assertTrue(dropDownView.isExpanded());
+
+        headerView.performClick();
+        assertFalse(dropDownView.isExpanded());
+    }
+
+    @Test
+    @UiThreadTest
+    public void headerAccessibilityClickTogglesDropDown() {
+        assertTrue(headerView.performAccessibilityAction(AccessibilityNodeInfo.ACTION_CLICK, null));
+        assertTrue(dropDownView.isExpanded());
+
+        headerView.performAccessibilityAction(AccessibilityNodeInfo.ACTION_CLICK, null);
+        assertFalse(dropDownView.isExpanded());
+    }
+
+    @Test
+    @UiThreadTest
+    public void scrimClickCollapsesDropDown() {
+        headerView.performClick();
+        layout();
+        assertTrue(dropDownView.isClickable());
+
+        assertTrue(dropDownView.performClick());
+        assertFalse(dropDownView.isExpanded());
+        assertFalse(dropDownView.isClickable());
+    }
+
+    @Test
+    @UiThreadTest
+    public void scrimAccessibilityClickCollapsesDropDown() {
+        headerView.performClick();
+        layout();
+
+        assertTrue(dropDownView.performAccessibilityAction(AccessibilityNodeInfo.ACTION_CLICK, null));
+        assertFalse(dropDownView.isExpanded());
+    }
+
+    private void layout() {
+        // The drop down isn't attached to a window, lay it out like a parent would
+        dropDownView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+        dropDownView.layout(0, 0, dropDownView.getMeasuredWidth(), dropDownView.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.app.Instrumentation;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that changing the state without animating ends a running transition on every API level,
+ * so requests queued behind it still run. Before API 23 the transition is ended through its
+ * animators.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+@RunWith(AndroidJUnit4.class)
+public class DropDownViewTransitionTest {
+
+    private static final long TRANSITION_DURATION_MILLIS = 1000L;
+    private static final long TRANSITION_RUNNING_MILLIS = 200L;
+    private static final long SETTLE_TIMEOUT_SECONDS = 5L;
+
+    @Rule
+    public final ActivityTestRule<DropDownTestActivity> activityRule = new ActivityTestRule<>(DropDownTestActivity.class);
+
+    private Instrumentation instrumentation;
+    private DropDownView dropDownView;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                DropDownTestActivity activity = activityRule.getActivity();
+                dropDownView = new DropDownView(activity);
+                dropDownView.setAnimationMode(DropDownView.ANIMATION_MODE_TRANSITION);
+                dropDownView.setMotionMode(DropDownView.MOTION_MODE_FULL);
+                dropDownView.setExpandDuration(TRANSITION_DURATION_MILLIS);
+                dropDownView.setCollapseDuration(TRANSITION_DURATION_MILLIS);
+                View headerView = new View(activity);
+                headerView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 100));
+                dropDownView.setHeaderView(headerView);
+                FrameLayout expandedView = new FrameLayout(activity);
+                expandedView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+                dropDownView.setExpandedView(expandedView);
+                activity.setContentView(dropDownView);
+            }
+        });
+        instrumentation.waitForIdleSync();
+    }
+
+    @Test
+    public void jumpDuringTransitionLetsQueuedRequestsRun() throws InterruptedException {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dropDownView.expandDropDown();
+            }
+        });
+        // Let the transition start on the next frames
+        SystemClock.sleep(TRANSITION_RUNNING_MILLIS);
+        final CountDownLatch settled = new CountDownLatch(1);
+        final boolean[] isExpandedAfterJump = new boolean[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dropDownView.setExpanded(false, false);
+                isExpandedAfterJump[0] = dropDownView.isExpanded();
+                // Queued while a transition is running, it would never run if the jump left one behind
+                dropDownView.setExpanded(true, true, new DropDownView.OnStateReachedListener() {
+                    @Override
+                    public void onStateReached(boolean expanded) {
+                        settled.countDown();
+                    }
+                });
+            }
+        });
+        assertFalse(isExpandedAfterJump[0]);
+        assertTrue("The drop down didn't settle after the jump",
+                settled.await(SETTLE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(dropDownView.isExpanded());
+    }
+}
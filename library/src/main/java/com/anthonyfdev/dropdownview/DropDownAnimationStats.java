@@ -0,0 +1,125 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+/**
+ * Frame timing and layout numbers collected by a {@link DropDownView} for a single expand or
+ * collapse, reported through {@link DropDownView.DropDownPerformanceListener}.
+ * <p>
+ * The same instance is reused for every report, copy the values you need to keep before returning
+ * from the callback.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+public final class DropDownAnimationStats {
+
+    boolean isExpand;
+    boolean isInterrupted;
+    long timeToFirstFrameNanos;
+    long durationNanos;
+    int frameCount;
+    int slowFrameCount;
+    int droppedFrameCount;
+    int measureCount;
+    int layoutCount;
+
+    DropDownAnimationStats() {
+    }
+
+    /**
+     * @return true if these numbers are for an expand, false for a collapse.
+     */
+    public boolean isExpand() {
+        return isExpand;
+    }
+
+    /**
+     * @return true if the animation was reversed or replaced by another one before it ended.
+     */
+    public boolean isInterrupted() {
+        return isInterrupted;
+    }
+
+    /**
+     * @return the time from the tap, or from the call when expanded or collapsed programmatically,
+     * to the start of the first frame after it, in nanoseconds.
+     */
+    public long getTimeToFirstFrameNanos() {
+        return timeToFirstFrameNanos;
+    }
+
+    /**
+     * @return the time from the tap, or from the call, to the end of the animation, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the number of frames drawn while animating.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the number of frames that took longer than one and a half refresh intervals.
+     */
+    public int getSlowFrameCount() {
+        return slowFrameCount;
+    }
+
+    /**
+     * @return the number of refresh intervals skipped by slow frames.
+     */
+    public int getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    /**
+     * @return the number of times the {@link DropDownView} was measured while animating.
+     */
+    public int getMeasureCount() {
+        return measureCount;
+    }
+
+    /**
+     * @return the number of times the {@link DropDownView} was laid out while animating.
+     */
+    public int getLayoutCount() {
+        return layoutCount;
+    }
+
+    void reset(boolean isExpand) {
+        this.isExpand = isExpand;
+        isInterrupted = false;
+        timeToFirstFrameNanos = 0;
+        durationNanos = 0;
+        frameCount = 0;
+        slowFrameCount = 0;
+        droppedFrameCount = 0;
+        measureCount = 0;
+        layoutCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DropDownAnimationStats{" +
+                "isExpand=" + isExpand +
+                ", isInterrupted=" + isInterrupted +
+                ", timeToFirstFrameNanos=" + timeToFirstFrameNanos +
+                ", durationNanos=" + durationNanos +
+                ", frameCount=" + frameCount +
+                ", slowFrameCount=" + slowFrameCount +
+                ", droppedFrameCount=" + droppedFrameCount +
+                ", measureCount=" + measureCount +
+                ", layoutCount=" + layoutCount +
+                '}';
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Stacks the header view and the expanded view of a {@link DropDownView} vertically, measuring and
+ * laying out each child exactly once per pass. Children are spaced by their
+ * <code>layout_margin</code>s and header views narrower than the container are centered
+ * horizontally. The expanded view can be capped to a maximum height, so lists inside it
+ * only lay out the rows that fit and keep recycling.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class DropDownContainer extends ViewGroup {
+
+    @Nullable
+    private View headerView;
+    @Nullable
+    private View expandedView;
+    private int maxExpandedHeight;
+    private float maxExpandedHeightFraction;
+    private int availableHeight;
+    @Nullable
+    private OnLayoutRequestedListener onLayoutRequestedListener;
+
+    public DropDownContainer(Context context) {
+        super(context);
+    }
+
+    public DropDownContainer(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Nullable
+    View getHeaderView() {
+        return headerView;
+    }
+
+    void setHeaderView(@NonNull View headerView) {
+        if (headerView == this.headerView) {
+            return;
+        }
+        if (this.headerView != null) {
+            removeView(this.headerView);
+        }
+        this.headerView = headerView;
+        addView(headerView, 0);
+    }
+
+    @Nullable
+    View getExpandedView() {
+        return expandedView;
+    }
+
+    void setExpandedView(@NonNull View expandedView) {
+        if (expandedView == this.expandedView) {
+            return;
+        }
+        if (this.expandedView != null) {
+            removeView(this.expandedView);
+        }
+        this.expandedView = expandedView;
+        addView(expandedView);
+    }
+
+    /**
+     * Removes the expanded view from this container, so it can be added to another one.
+     */
+    void clearExpandedView() {
+        if (expandedView != null) {
+            removeView(expandedView);
+            expandedView = null;
+        }
+    }
+
+    /**
+     * Sets the height available to this container until its next measure pass, used by
+     * {@link #measureExpandedView(int)} while this container isn't laid out yet.
+     */
+    void setAvailableHeight(int availableHeight) {
+        this.availableHeight = availableHeight;
+    }
+
+    int getMaxExpandedHeight() {
+        return maxExpandedHeight;
+    }
+
+    void setMaxExpandedHeight(int maxExpandedHeight) {
+        this.maxExpandedHeight = maxExpandedHeight;
+        requestLayout();
+    }
+
+    float getMaxExpandedHeightFraction() {
+        return maxExpandedHeightFraction;
+    }
+
+    void setMaxExpandedHeightFraction(float maxExpandedHeightFraction) {
+        this.maxExpandedHeightFraction = maxExpandedHeightFraction;
+        requestLayout();
+    }
+
+    /**
+     * Measures the expanded view for the given container width, the same way a layout pass would.
+     *
+     * @return the height the expanded view takes in this container, margins included
+     */
+    int measureExpandedView(int width) {
+        if (expandedView == null) {
+            return 0;
+        }
+        int usedHeight = getPaddingTop() + getPaddingBottom() + getHeaderHeight();
+        int heightMeasureSpec = availableHeight > 0
+                ? MeasureSpec.makeMeasureSpec(availableHeight, MeasureSpec.AT_MOST)
+                : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        measureStackedChild(expandedView, MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), heightMeasureSpec, usedHeight);
+        MarginLayoutParams lp = (MarginLayoutParams) expandedView.getLayoutParams();
+        return expandedView.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+    }
+
+    /**
+     * Lays out the expanded view where the next layout pass would place it, using the size from
+     * {@link #measureExpandedView(int)}. Works while the expanded view is gone, so its content is
+     * ready before it is shown.
+     */
+    void layoutExpandedView() {
+        if (expandedView == null) {
+            return;
+        }
+        MarginLayoutParams lp = (MarginLayoutParams) expandedView.getLayoutParams();
+        int top = getPaddingTop() + getHeaderHeight() + lp.topMargin;
+        int left = getPaddingLeft() + lp.leftMargin;
+        expandedView.layout(left, top, left + expandedView.getMeasuredWidth(), top + expandedView.getMeasuredHeight());
+    }
+
+    void setOnLayoutRequestedListener(@Nullable OnLayoutRequestedListener onLayoutRequestedListener) {
+        this.onLayoutRequestedListener = onLayoutRequestedListener;
+    }
+
+    /**
+     * @return the bottom of the header view relative to this container, its bottom margin
+     * included, the top padding if there is no visible header.
+     */
+    int getHeaderBottom() {
+        if (headerView != null && headerView.getVisibility() != GONE) {
+            return headerView.getBottom() + ((MarginLayoutParams) headerView.getLayoutParams()).bottomMargin;
+        }
+        return getPaddingTop();
+    }
+
+    /**
+     * @return the height the header view takes in this container, margins included.
+     */
+    private int getHeaderHeight() {
+        if (headerView == null || headerView.getVisibility() == GONE) {
+            return 0;
+        }
+        MarginLayoutParams lp = (MarginLayoutParams) headerView.getLayoutParams();
+        return headerView.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        availableHeight = MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED
+                ? MeasureSpec.getSize(heightMeasureSpec) : 0;
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int usedHeight = getPaddingTop() + getPaddingBottom();
+        int maxChildWidth = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            measureStackedChild(child, widthMeasureSpec, heightMeasureSpec, usedHeight);
+            MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+            usedHeight += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+            maxChildWidth = Math.max(maxChildWidth, child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
+        }
+        setMeasuredDimension(
+                resolveSize(Math.max(maxChildWidth + horizontalPadding, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(usedHeight, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    private void measureStackedChild(@NonNull View child, int widthMeasureSpec, int heightMeasureSpec, int usedHeight) {
+        MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+        int usedWidth = getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin;
+        usedHeight += lp.topMargin + lp.bottomMargin;
+        int childHeightMeasureSpec = child == expandedView
+                ? getExpandedViewHeightMeasureSpec(heightMeasureSpec, usedHeight, lp.height)
+                : getChildMeasureSpec(heightMeasureSpec, usedHeight, lp.height);
+        child.measure(getChildMeasureSpec(widthMeasureSpec, usedWidth, lp.width), childHeightMeasureSpec);
+    }
+
+    private int getExpandedViewHeightMeasureSpec(int heightMeasureSpec, int usedHeight, int childHeight) {
+        int limit = getExpandedHeightLimit();
+        if (limit == Integer.MAX_VALUE) {
+            return getChildMeasureSpec(heightMeasureSpec, usedHeight, childHeight);
+        }
+        if (childHeight >= 0) {
+            return MeasureSpec.makeMeasureSpec(Math.min(childHeight, limit), MeasureSpec.EXACTLY);
+        }
+        if (childHeight == LayoutParams.MATCH_PARENT) {
+            return MeasureSpec.makeMeasureSpec(limit, MeasureSpec.EXACTLY);
+        }
+        // Wrap content, bounded so that lists don't lay out every row
+        int spec = getChildMeasureSpec(heightMeasureSpec, usedHeight, childHeight);
+        int size = MeasureSpec.getMode(spec) == MeasureSpec.UNSPECIFIED ? limit : Math.min(MeasureSpec.getSize(spec), limit);
+        return MeasureSpec.makeMeasureSpec(size, MeasureSpec.AT_MOST);
+    }
+
+    private int getExpandedHeightLimit() {
+        int limit = Integer.MAX_VALUE;
+        if (maxExpandedHeight > 0) {
+            limit = maxExpandedHeight;
+        }
+        if (maxExpandedHeightFraction > 0f) {
+            int parentHeight = availableHeight > 0 ? availableHeight : getResources().getDisplayMetrics().heightPixels;
+            limit = Math.min(limit, (int) (parentHeight * maxExpandedHeightFraction));
+        }
+        return limit;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int left = getPaddingLeft();
+        int availableWidth = r - l - left - getPaddingRight();
+        int top = getPaddingTop();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+            int childWidth = child.getMeasuredWidth();
+            int childHeight = child.getMeasuredHeight();
+            int childLeft = left + lp.leftMargin;
+            if (child == headerView) {
+                childLeft += (availableWidth - lp.leftMargin - lp.rightMargin - childWidth) / 2;
+            }
+            top += lp.topMargin;
+            child.layout(childLeft, top, childLeft + childWidth, top + childHeight);
+            top += childHeight + lp.bottomMargin;
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        // Requests from the header, such as rebinding it, don't change the size of the expanded view
+        if (onLayoutRequestedListener != null && expandedView != null && expandedView.isLayoutRequested()) {
+            onLayoutRequestedListener.onExpandedViewLayoutRequested();
+        }
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new MarginLayoutParams((MarginLayoutParams) p);
+        }
+        return new MarginLayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    /**
+     * Notified whenever the expanded view or one of its descendants requests a layout.
+     */
+    interface OnLayoutRequestedListener {
+        void onExpandedViewLayoutRequested();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import java.util.List;
+
+/**
+ * Loads the items of a {@link DropDownListAdapter} in pages on background threads, for items that
+ * come from a database or the network. Set it with
+ * {@link DropDownListAdapter#setDataSource(DropDownDataSource, int)}.
+ *
+ * @param <T> the item type
+ * @author Anthony Fermin (Fuzz)
+ */
+public interface DropDownDataSource<T> {
+
+    /**
+     * Called once on a background thread before any page is loaded. The list shows a placeholder
+     * row for every item until its page arrives. If it throws, it is called again the next time
+     * the drop down is attached.
+     *
+     * @return the total number of items
+     */
+    @WorkerThread
+    int loadCount();
+
+    /**
+     * Called on a background thread, possibly for several pages at once. If it throws, the page is
+     * asked for again the next time one of its rows is bound.
+     *
+     * @param startPosition position of the first item to load
+     * @param count         how many items to load, never past the total from {@link #loadCount()}
+     * @return the items from the start position on. Return fewer when some can't be loaded yet,
+     * the missing ones stay placeholders and are asked for again after a delay that grows with
+     * every retry.
+     */
+    @WorkerThread
+    @NonNull
+    List<T> loadRange(int startPosition, int count);
+}
@@ -0,0 +1,73 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Shared threads used by {@link DropDownView} to move work off the main thread.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+final class DropDownExecutors {
+
+    private static final int IO_THREAD_COUNT = 2;
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(newThreadFactory("DropDownView-background"));
+    private static final ExecutorService IO = Executors.newFixedThreadPool(IO_THREAD_COUNT, newThreadFactory("DropDownView-io"));
+    private static final Handler MAIN_THREAD = new Handler(Looper.getMainLooper());
+
+    private DropDownExecutors() {
+    }
+
+    /**
+     * @return a single background thread, tasks run in the order they were submitted.
+     */
+    static Executor background() {
+        return BACKGROUND;
+    }
+
+    /**
+     * @return a few background threads for loading data, so slow loads don't hold up diffing.
+     */
+    static Executor io() {
+        return IO;
+    }
+
+    /**
+     * @return a handler on the main thread.
+     */
+    static Handler mainThread() {
+        return MAIN_THREAD;
+    }
+
+    private static ThreadFactory newThreadFactory(@NonNull final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Follows the frames of a single expand or collapse with {@link Choreographer} callbacks and fills
+ * a reused {@link DropDownAnimationStats} for the {@link DropDownView.DropDownPerformanceListener}.
+ * Only created once a listener is set.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+final class DropDownFrameTracker implements Choreographer.FrameCallback {
+
+    private static final float SLOW_FRAME_FACTOR = 1.5f;
+
+    @NonNull
+    private final DropDownView.DropDownPerformanceListener listener;
+    private final DropDownAnimationStats stats = new DropDownAnimationStats();
+    private final long frameIntervalNanos;
+    private boolean isTracking;
+    private long startNanos;
+    private long lastFrameNanos;
+
+    DropDownFrameTracker(@NonNull Context context, @NonNull DropDownView.DropDownPerformanceListener listener) {
+        this.listener = listener;
+        frameIntervalNanos = getFrameIntervalNanos(context);
+    }
+
+    /**
+     * @return the time between two frames of the default display
+     */
+    static long getFrameIntervalNanos(@NonNull Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 60f;
+        return (long) (1000000000L / (refreshRate > 0f ? refreshRate : 60f));
+    }
+
+    /**
+     * Starts following a new expand or collapse, reporting the one in progress as interrupted.
+     *
+     * @param startNanos when the user asked for it, in {@link System#nanoTime()} time
+     */
+    void start(boolean isExpand, long startNanos) {
+        if (isTracking) {
+            stats.isInterrupted = true;
+            finish();
+        }
+        stats.reset(isExpand);
+        this.startNanos = startNanos;
+        lastFrameNanos = 0;
+        isTracking = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Reports the expand or collapse in progress, if any.
+     */
+    void finish() {
+        if (!isTracking) {
+            return;
+        }
+        isTracking = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        stats.durationNanos = System.nanoTime() - startNanos;
+        listener.onAnimationStats(stats);
+    }
+
+    /**
+     * Stops following the expand or collapse in progress without reporting it.
+     */
+    void cancel() {
+        isTracking = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    void onMeasure() {
+        if (isTracking) {
+            stats.measureCount++;
+        }
+    }
+
+    void onLayout() {
+        if (isTracking) {
+            stats.layoutCount++;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!isTracking) {
+            return;
+        }
+        if (lastFrameNanos == 0) {
+            stats.timeToFirstFrameNanos = System.nanoTime() - startNanos;
+        } else {
+            long intervalNanos = frameTimeNanos - lastFrameNanos;
+            if (intervalNanos > frameIntervalNanos * SLOW_FRAME_FACTOR) {
+                stats.slowFrameCount++;
+                stats.droppedFrameCount += Math.round((double) intervalNanos / frameIntervalNanos) - 1;
+            }
+        }
+        stats.frameCount++;
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -0,0 +1,854 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.util.LruCache;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An adapter for the built-in list mode of {@link DropDownView}, set with
+ * {@link DropDownView#setAdapter(DropDownListAdapter)}.
+ * <p>
+ * Items are identified by stable ids. New lists passed to {@link #setItems(List)} are diffed
+ * against the current list on a background thread, so only the rows that actually changed are
+ * rebound. Row clicks select the clicked item and the header view of the {@link DropDownView} is
+ * rebound from the selected item through {@link #onBindHeaderView(View, Object)}.
+ * <p>
+ * Single items can be replaced from any thread with {@link #updateItem(Object)}. Updates are merged
+ * per item and applied once per frame with the payload from {@link #getChangePayload(Object, Object)},
+ * and while the drop down is collapsed only the header is rebound until it expands again.
+ * <p>
+ * Items can also come from a {@link DropDownDataSource} set with
+ * {@link #setDataSource(DropDownDataSource, int)}, loaded in pages on background threads and shown
+ * as placeholders until their page arrives.
+ * <p>
+ * Rows that show their labels in {@link DropDownTextView}s bound with
+ * {@link #bindLabel(DropDownTextView, Object, int)} get their text laid out on a background
+ * thread ahead of time, cached per item, label and width.
+ *
+ * @param <T>  the item type
+ * @param <VH> the view holder type
+ * @author Anthony Fermin (Fuzz)
+ */
+public abstract class DropDownListAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /**
+     * Payload of the change notifications sent when an item gets selected or deselected.
+     */
+    public static final Object PAYLOAD_SELECTION = new Object();
+    private static final Object PAYLOAD_FULL_REBIND = new Object();
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    // Placeholders get ids from the bottom of the range, away from the ids of real items
+    private static final long PLACEHOLDER_ID_BASE = Long.MIN_VALUE;
+    private static final int TEXT_LAYOUT_CACHE_SIZE = 200;
+
+    @NonNull
+    private List<T> items = Collections.emptyList();
+    private long selectedItemId = RecyclerView.NO_ID;
+    private int itemsGeneration;
+    private int pendingDiffCount;
+    // Built in one pass on the first lookup after the items change, a sparse array would keep
+    // shifting its keys since ids don't come in order
+    @Nullable
+    private HashMap<Long, Integer> positionsById;
+    private final Object pendingUpdatesLock = new Object();
+    // Guarded by pendingUpdatesLock, swapped with applyingUpdates once per frame
+    private LongSparseArray<T> pendingUpdates = new LongSparseArray<>();
+    private LongSparseArray<T> applyingUpdates = new LongSparseArray<>();
+    private boolean isUpdateFrameScheduled;
+    private final LongSparseArray<Object> deferredChanges = new LongSparseArray<>();
+    // Updates applied while a diff runs or while their item's page may still be loading, applied
+    // again once the diffed list or the page replaces the items they were applied to
+    private final LongSparseArray<T> heldUpdates = new LongSparseArray<>();
+    @Nullable
+    private RecyclerView recyclerView;
+    @Nullable
+    private DropDownView dropDownView;
+    @Nullable
+    private DropDownPageLoader<T> pageLoader;
+    private final LruCache<TextLayoutKey, Layout> textLayoutCache = new LruCache<>(TEXT_LAYOUT_CACHE_SIZE);
+    private final TextLayoutKey textLayoutLookupKey = new TextLayoutKey();
+    // Paint and width of every label index, learned from the first row that laid the label out
+    private final SparseArray<TextLayoutSpec> textLayoutSpecs = new SparseArray<>();
+    private volatile int textLayoutGeneration;
+    // Positions whose labels were last laid out ahead, around the last bound row
+    private int textLayoutRangeStart;
+    private int textLayoutRangeEnd;
+    private int lastBoundPosition;
+
+    public DropDownListAdapter() {
+        setHasStableIds(true);
+    }
+
+    /**
+     * @param item an item of this adapter
+     * @return an id that uniquely identifies the item across list updates
+     */
+    public abstract long getStableId(@NonNull T item);
+
+    /**
+     * Binds a row. The row's item view click listener is owned by this adapter and selects the item.
+     *
+     * @param holder     the view holder to bind
+     * @param item       the item at the holder's position
+     * @param isSelected true if the item is the selected item
+     */
+    public abstract void onBindViewHolder(@NonNull VH holder, @NonNull T item, boolean isSelected);
+
+    /**
+     * Binds a row whose item hasn't been loaded yet by the {@link DropDownDataSource}. It is bound
+     * again with its item once its page arrives. Default does nothing.
+     *
+     * @param holder   the view holder to bind
+     * @param position the position of the row
+     */
+    public void onBindPlaceholderViewHolder(@NonNull VH holder, int position) {
+    }
+
+    /**
+     * Returns a label of the item, for rows binding it with
+     * {@link #bindLabel(DropDownTextView, Object, int)}. Called on the main thread when binding and
+     * on a background thread to lay labels out ahead of time, so it must only read the item.
+     * Default returns null.
+     *
+     * @param item       an item of this adapter
+     * @param labelIndex which label of the row, as passed to {@link #bindLabel(DropDownTextView, Object, int)}
+     * @return the label text, or null for none
+     */
+    @Nullable
+    public CharSequence getItemLabel(@NonNull T item, int labelIndex) {
+        return null;
+    }
+
+    /**
+     * Shows a label of the item from {@link #getItemLabel(Object, int)} in the view, with a layout
+     * precomputed on a background thread when there is one. The first row that lays a label out
+     * tells the adapter its paint and width, after which the labels of the other items are laid
+     * out in the background. Call it from {@link #onBindViewHolder(RecyclerView.ViewHolder, Object, boolean)}.
+     *
+     * @param labelView  the view of the label in the row
+     * @param item       the item of the row
+     * @param labelIndex which label of the row, rows with several labels use one index per label
+     */
+    public final void bindLabel(@NonNull DropDownTextView labelView, @NonNull T item, int labelIndex) {
+        CharSequence label = getItemLabel(item, labelIndex);
+        long itemId = getStableId(item);
+        labelView.setOnTextLayoutListener(textLayoutListener, itemId, labelIndex);
+        TextLayoutSpec spec = textLayoutSpecs.get(labelIndex);
+        if (spec != null && !TextUtils.isEmpty(label) && DropDownTextView.isSameStyle(spec.paint, labelView.getTextPaint())) {
+            Layout layout = textLayoutCache.get(textLayoutLookupKey.set(itemId, labelIndex, spec.width));
+            if (layout != null && TextUtils.equals(layout.getText(), label)) {
+                labelView.setTextLayout(layout);
+                return;
+            }
+        }
+        labelView.setText(label);
+    }
+
+    /**
+     * Binds the header view of the {@link DropDownView} to the selected item. Called whenever the
+     * selection or the selected item changes. Default does nothing.
+     *
+     * @param headerView   the header view set on the {@link DropDownView}
+     * @param selectedItem the selected item
+     */
+    public void onBindHeaderView(@NonNull View headerView, @NonNull T selectedItem) {
+    }
+
+    /**
+     * Binds a row with partial changes. Default ignores the payloads and binds the whole row.
+     *
+     * @param holder     the view holder to bind
+     * @param item       the item at the holder's position
+     * @param isSelected true if the item is the selected item
+     * @param payloads   non empty list of payloads from {@link #getChangePayload(Object, Object)},
+     *                   or {@link #PAYLOAD_SELECTION}
+     */
+    public void onBindViewHolder(@NonNull VH holder, @NonNull T item, boolean isSelected, @NonNull List<Object> payloads) {
+        onBindViewHolder(holder, item, isSelected);
+    }
+
+    /**
+     * Describes what changed between two versions of an item, for a partial rebind. May be called
+     * on a background thread. Default returns null, which rebinds the whole row.
+     *
+     * @return a payload handed to {@link #onBindViewHolder(RecyclerView.ViewHolder, Object, boolean, List)},
+     * or null
+     */
+    @Nullable
+    public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
+        return null;
+    }
+
+    /**
+     * Called on a background thread while diffing. Default uses {@link Object#equals(Object)}.
+     *
+     * @return true if both items with the same stable id display the same content
+     */
+    public boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /**
+     * Replaces the items of this adapter. The difference with the current items is computed on a
+     * background thread and dispatched as granular change notifications on the main thread. Must
+     * be called on the main thread.
+     *
+     * @param newItems the new items, copied by this adapter
+     */
+    public void setItems(@NonNull List<T> newItems) {
+        // Placeholders can't be diffed, replace them all at once
+        boolean hasPlaceholders = cancelDataSource();
+        // Updates made before these items were set are older than them
+        heldUpdates.clear();
+        final List<T> oldItems = items;
+        final List<T> newItemsCopy = new ArrayList<>(newItems);
+        final int generation = ++itemsGeneration;
+        if (oldItems.isEmpty() || newItemsCopy.isEmpty() || hasPlaceholders) {
+            setItemsInternal(newItemsCopy);
+            notifyDataSetChanged();
+            onItemsChanged();
+            return;
+        }
+        pendingDiffCount++;
+        DropDownExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new ItemsDiffCallback(oldItems, newItemsCopy));
+                DropDownExecutors.mainThread().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pendingDiffCount--;
+                        if (generation == itemsGeneration) {
+                            setItemsInternal(newItemsCopy);
+                            diffResult.dispatchUpdatesTo(DropDownListAdapter.this);
+                            applyHeldUpdates();
+                            onItemsChanged();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #setDataSource(DropDownDataSource, int)} with pages of 20 items.
+     */
+    public void setDataSource(@Nullable DropDownDataSource<T> dataSource) {
+        setDataSource(dataSource, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Replaces the items of this adapter with items loaded from the data source on background
+     * threads. Loading starts once the {@link DropDownView} is attached to a window, so the first
+     * page is usually there before the drop down is expanded. Rows of items that aren't loaded yet
+     * are bound with {@link #onBindPlaceholderViewHolder(RecyclerView.ViewHolder, int)}, and the
+     * next page is loaded as the list scrolls towards it. Must be called on the main thread.
+     *
+     * @param dataSource your data source, null to clear the items
+     * @param pageSize   how many items to load at once
+     */
+    public void setDataSource(@Nullable DropDownDataSource<T> dataSource, int pageSize) {
+        cancelDataSource();
+        heldUpdates.clear();
+        itemsGeneration++;
+        setItemsInternal(Collections.<T>emptyList());
+        notifyDataSetChanged();
+        if (dataSource != null) {
+            pageLoader = new DropDownPageLoader<>(dataSource, pageSize, pageLoaderCallback);
+            startLoadingIfAttached();
+        }
+    }
+
+    /**
+     * Replaces the item that has the same stable id as the given item. Safe to call from any
+     * thread. Updates to the same item within a frame are merged, only the last one is applied.
+     * Updates made while {@link #setItems(List)} diffs are applied again on top of the new items.
+     * Updates for items that aren't in the current items are dropped, unless the items come from a
+     * {@link DropDownDataSource}, in which case they replace the item once its page arrives.
+     *
+     * @param item the new version of an item
+     */
+    public void updateItem(@NonNull T item) {
+        long itemId = getStableId(item);
+        synchronized (pendingUpdatesLock) {
+            pendingUpdates.put(itemId, item);
+            if (isUpdateFrameScheduled) {
+                return;
+            }
+            isUpdateFrameScheduled = true;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Choreographer.getInstance().postFrameCallback(applyUpdatesFrameCallback);
+        } else {
+            DropDownExecutors.mainThread().post(scheduleUpdatesFrameRunnable);
+        }
+    }
+
+    /**
+     * @return an unmodifiable view of the current items.
+     */
+    @NonNull
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * @return the item at the position, or null while it is a placeholder for an item that is
+     * still loading.
+     */
+    @Nullable
+    public T getItem(int position) {
+        return items.get(position);
+    }
+
+    /**
+     * @return true if the row at the position is a placeholder for an item that is still loading.
+     */
+    public boolean isPlaceholder(int position) {
+        return items.get(position) == null;
+    }
+
+    /**
+     * @return the stable id of the selected item, {@link RecyclerView#NO_ID} if there is none.
+     */
+    public long getSelectedItemId() {
+        return selectedItemId;
+    }
+
+    /**
+     * @return the selected item, or null if none is selected or it isn't in the current items.
+     */
+    @Nullable
+    public T getSelectedItem() {
+        int position = getPositionForId(selectedItemId);
+        return position != RecyclerView.NO_POSITION ? items.get(position) : null;
+    }
+
+    /**
+     * Selects the item with the given stable id, rebinding the affected rows and the header view.
+     *
+     * @param itemId the stable id of the item to select, {@link RecyclerView#NO_ID} to clear
+     */
+    public void setSelectedItemId(long itemId) {
+        if (itemId == selectedItemId) {
+            return;
+        }
+        long previousItemId = selectedItemId;
+        selectedItemId = itemId;
+        notifyItemChangedById(previousItemId, PAYLOAD_SELECTION);
+        notifyItemChangedById(itemId, PAYLOAD_SELECTION);
+        bindHeaderView();
+    }
+
+    /**
+     * @return the position of the item with the given stable id, {@link RecyclerView#NO_POSITION}
+     * if it isn't in the current items.
+     */
+    public int getPositionForId(long itemId) {
+        if (itemId == RecyclerView.NO_ID) {
+            return RecyclerView.NO_POSITION;
+        }
+        if (positionsById == null) {
+            positionsById = new HashMap<>(items.size() * 4 / 3 + 1);
+            for (int i = 0; i < items.size(); i++) {
+                T item = items.get(i);
+                if (item != null) {
+                    positionsById.put(getStableId(item), i);
+                }
+            }
+        }
+        Integer position = positionsById.get(itemId);
+        return position != null ? position : RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public final void onBindViewHolder(VH holder, int position) {
+        if (pageLoader != null) {
+            pageLoader.loadAround(position);
+        }
+        lastBoundPosition = position;
+        if (isNearTextLayoutRangeEdge(position)) {
+            // The list scrolled towards labels that weren't laid out ahead
+            schedulePrecomputeTextLayouts();
+        }
+        T item = items.get(position);
+        if (item == null) {
+            holder.itemView.setOnClickListener(null);
+            onBindPlaceholderViewHolder(holder, position);
+            return;
+        }
+        holder.itemView.setOnClickListener(itemClickListener);
+        onBindViewHolder(holder, item, getStableId(item) == selectedItemId);
+    }
+
+    @Override
+    public final void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty() || items.get(position) == null) {
+            onBindViewHolder(holder, position);
+        } else {
+            T item = items.get(position);
+            onBindViewHolder(holder, item, getStableId(item) == selectedItemId, payloads);
+        }
+    }
+
+    @Override
+    public final long getItemId(int position) {
+        T item = items.get(position);
+        return item != null ? getStableId(item) : PLACEHOLDER_ID_BASE + position;
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        startLoadingIfAttached();
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        this.recyclerView = null;
+    }
+
+    void setDropDownView(@Nullable DropDownView dropDownView) {
+        this.dropDownView = dropDownView;
+        bindHeaderView();
+        startLoadingIfAttached();
+    }
+
+    /**
+     * Inserts items without diffing, for adapters that know exactly what changed.
+     */
+    void insertItems(int position, @NonNull List<T> newItems) {
+        if (newItems.isEmpty()) {
+            return;
+        }
+        ensureItemsMutable();
+        items.addAll(position, newItems);
+        positionsById = null;
+        notifyItemRangeInserted(position, newItems.size());
+        // The selected item keeps its content, only its position may have moved
+        schedulePrecomputeTextLayouts();
+    }
+
+    /**
+     * Removes items without diffing, for adapters that know exactly what changed.
+     */
+    void removeItems(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        ensureItemsMutable();
+        items.subList(position, position + count).clear();
+        positionsById = null;
+        notifyItemRangeRemoved(position, count);
+        schedulePrecomputeTextLayouts();
+    }
+
+    /**
+     * Called when a row is clicked, before the item gets selected.
+     *
+     * @return true if the click was handled and the item must not be selected
+     */
+    boolean onRowClicked(int position, @NonNull T item) {
+        return false;
+    }
+
+    /**
+     * Starts loading the data source once the header or the list can be seen.
+     */
+    void startLoadingIfAttached() {
+        if (pageLoader == null || pageLoader.isStarted()) {
+            return;
+        }
+        if ((dropDownView != null && ViewCompat.isAttachedToWindow(dropDownView))
+                || (recyclerView != null && ViewCompat.isAttachedToWindow(recyclerView))) {
+            pageLoader.start();
+        }
+    }
+
+    /**
+     * @return true if the current items came from a data source and may hold placeholders.
+     */
+    private boolean cancelDataSource() {
+        if (pageLoader == null) {
+            return false;
+        }
+        pageLoader.cancel();
+        pageLoader = null;
+        return true;
+    }
+
+    void bindHeaderView() {
+        View headerView = dropDownView != null ? dropDownView.getHeaderView() : null;
+        T selectedItem = getSelectedItem();
+        if (headerView != null && selectedItem != null) {
+            onBindHeaderView(headerView, selectedItem);
+        }
+    }
+
+    /**
+     * Sends the row changes that were held back while the drop down was collapsed.
+     */
+    void dispatchDeferredChanges() {
+        for (int i = 0; i < deferredChanges.size(); i++) {
+            int position = getPositionForId(deferredChanges.keyAt(i));
+            if (position != RecyclerView.NO_POSITION) {
+                Object payload = deferredChanges.valueAt(i);
+                notifyItemChanged(position, payload != PAYLOAD_FULL_REBIND ? payload : null);
+            }
+        }
+        deferredChanges.clear();
+    }
+
+    private boolean shouldDeferChanges() {
+        return dropDownView != null && !dropDownView.isExpanded();
+    }
+
+    private void notifyItemChangedById(long itemId, @Nullable Object payload) {
+        int position = getPositionForId(itemId);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (shouldDeferChanges()) {
+            if (payload == null) {
+                payload = PAYLOAD_FULL_REBIND;
+            }
+            int index = deferredChanges.indexOfKey(itemId);
+            if (index < 0) {
+                deferredChanges.put(itemId, payload);
+            } else if (!payload.equals(deferredChanges.valueAt(index))) {
+                // Different kinds of changes for the same row, rebind all of it
+                deferredChanges.setValueAt(index, PAYLOAD_FULL_REBIND);
+            }
+        } else {
+            notifyItemChanged(position, payload);
+        }
+    }
+
+    private void ensureItemsMutable() {
+        if (pendingDiffCount > 0 || !(items instanceof ArrayList)) {
+            // The current list is being diffed on the background thread or is immutable, copy it
+            items = new ArrayList<>(items);
+        }
+    }
+
+    private void setItemsInternal(@NonNull List<T> newItems) {
+        items = newItems;
+        positionsById = null;
+    }
+
+    private void applyPendingUpdates() {
+        LongSparseArray<T> updates;
+        synchronized (pendingUpdatesLock) {
+            updates = pendingUpdates;
+            pendingUpdates = applyingUpdates;
+            applyingUpdates = updates;
+            isUpdateFrameScheduled = false;
+        }
+        ensureItemsMutable();
+        boolean isSelectedItemChanged = false;
+        for (int i = 0; i < updates.size(); i++) {
+            long itemId = updates.keyAt(i);
+            T newItem = updates.valueAt(i);
+            int position = getPositionForId(itemId);
+            if (pendingDiffCount > 0 || (position == RecyclerView.NO_POSITION && pageLoader != null)) {
+                // The diffed list or a page still loading would bring the old version back
+                heldUpdates.put(itemId, newItem);
+            }
+            if (position != RecyclerView.NO_POSITION) {
+                isSelectedItemChanged |= replaceItem(position, newItem);
+            }
+        }
+        if (updates.size() > 0) {
+            schedulePrecomputeTextLayouts();
+        }
+        updates.clear();
+        if (isSelectedItemChanged) {
+            bindHeaderView();
+        }
+    }
+
+    /**
+     * Replaces the item at the position, notifying the change if its content differs.
+     *
+     * @return true if the selected item changed
+     */
+    private boolean replaceItem(int position, @NonNull T newItem) {
+        T oldItem = items.get(position);
+        items.set(position, newItem);
+        if (oldItem == null || areContentsTheSame(oldItem, newItem)) {
+            return false;
+        }
+        long itemId = getStableId(newItem);
+        notifyItemChangedById(itemId, getChangePayload(oldItem, newItem));
+        return itemId == selectedItemId;
+    }
+
+    /**
+     * Applies the updates made while the diff ran on top of the diffed items, once no other diff
+     * is pending.
+     */
+    private void applyHeldUpdates() {
+        if (pendingDiffCount > 0 || heldUpdates.size() == 0) {
+            return;
+        }
+        ensureItemsMutable();
+        for (int i = 0; i < heldUpdates.size(); i++) {
+            int position = getPositionForId(heldUpdates.keyAt(i));
+            if (position != RecyclerView.NO_POSITION) {
+                replaceItem(position, heldUpdates.valueAt(i));
+            }
+        }
+        heldUpdates.clear();
+    }
+
+    private void onItemsChanged() {
+        bindHeaderView();
+        schedulePrecomputeTextLayouts();
+    }
+
+    /**
+     * Lays out the labels of the items around the last bound row on the background thread, as many
+     * as the cache holds. While collapsed that is where the list opens. Labels already laid out
+     * with the same text are skipped.
+     */
+    private void schedulePrecomputeTextLayouts() {
+        if (textLayoutSpecs.size() == 0 || items.isEmpty()) {
+            return;
+        }
+        final int generation = ++textLayoutGeneration;
+        final int specCount = textLayoutSpecs.size();
+        final int[] labelIndices = new int[specCount];
+        final TextLayoutSpec[] specs = new TextLayoutSpec[specCount];
+        for (int i = 0; i < specCount; i++) {
+            labelIndices[i] = textLayoutSpecs.keyAt(i);
+            specs[i] = textLayoutSpecs.valueAt(i);
+        }
+        int rangeSize = Math.min(items.size(), TEXT_LAYOUT_CACHE_SIZE / specCount);
+        // A third before the last bound row, the rest after it where the list usually scrolls
+        textLayoutRangeStart = Math.max(0, Math.min(lastBoundPosition - rangeSize / 3, items.size() - rangeSize));
+        textLayoutRangeEnd = textLayoutRangeStart + rangeSize;
+        final List<T> itemsToLayOut = new ArrayList<>(items.subList(textLayoutRangeStart, textLayoutRangeEnd));
+        DropDownExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (T item : itemsToLayOut) {
+                    if (generation != textLayoutGeneration) {
+                        // Newer items or labels are being laid out
+                        return;
+                    }
+                    if (item != null) {
+                        precomputeTextLayouts(item, labelIndices, specs);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true if the position is in the outer quarters of the labels laid out ahead, on a side
+     * with more items to lay out
+     */
+    private boolean isNearTextLayoutRangeEdge(int position) {
+        if (textLayoutSpecs.size() == 0) {
+            return false;
+        }
+        int margin = (textLayoutRangeEnd - textLayoutRangeStart) / 4;
+        return (position < textLayoutRangeStart + margin && textLayoutRangeStart > 0)
+                || (position >= textLayoutRangeEnd - margin && textLayoutRangeEnd < items.size());
+    }
+
+    private void precomputeTextLayouts(@NonNull T item, int[] labelIndices, TextLayoutSpec[] specs) {
+        long itemId = getStableId(item);
+        for (int i = 0; i < specs.length; i++) {
+            CharSequence label = getItemLabel(item, labelIndices[i]);
+            if (TextUtils.isEmpty(label)) {
+                continue;
+            }
+            TextLayoutKey key = new TextLayoutKey().set(itemId, labelIndices[i], specs[i].width);
+            Layout layout = textLayoutCache.get(key);
+            if (layout == null || !TextUtils.equals(layout.getText(), label)) {
+                textLayoutCache.put(key, DropDownTextView.createLayout(label, specs[i].paint, specs[i].width));
+            }
+        }
+    }
+
+    private final DropDownTextView.OnTextLayoutListener textLayoutListener = new DropDownTextView.OnTextLayoutListener() {
+        @Override
+        public void onTextLayout(@NonNull DropDownTextView view, long itemId, int labelIndex, @NonNull Layout layout) {
+            TextLayoutSpec spec = textLayoutSpecs.get(labelIndex);
+            if (spec == null || spec.width != layout.getWidth() || !DropDownTextView.isSameStyle(spec.paint, view.getTextPaint())) {
+                // A copy, the background thread must never see the paint change
+                textLayoutSpecs.put(labelIndex, new TextLayoutSpec(new TextPaint(view.getTextPaint()), layout.getWidth()));
+                schedulePrecomputeTextLayouts();
+            }
+        }
+    };
+
+    private final DropDownPageLoader.Callback<T> pageLoaderCallback = new DropDownPageLoader.Callback<T>() {
+        @Override
+        public void onCountLoaded(int count) {
+            setItemsInternal(new ArrayList<T>(Collections.<T>nCopies(count, null)));
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onPageLoaded(int startPosition, @NonNull List<T> pageItems) {
+            int count = Math.min(pageItems.size(), items.size() - startPosition);
+            for (int i = 0; i < count; i++) {
+                T item = pageItems.get(i);
+                long itemId = getStableId(item);
+                // An update that arrived while the page loaded is newer than the loaded item
+                int heldIndex = heldUpdates.indexOfKey(itemId);
+                if (heldIndex >= 0) {
+                    item = heldUpdates.valueAt(heldIndex);
+                    heldUpdates.removeAt(heldIndex);
+                }
+                items.set(startPosition + i, item);
+            }
+            positionsById = null;
+            notifyItemRangeChanged(startPosition, count);
+            onItemsChanged();
+        }
+    };
+
+    private final Choreographer.FrameCallback applyUpdatesFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            applyPendingUpdates();
+        }
+    };
+
+    private final Runnable scheduleUpdatesFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(applyUpdatesFrameCallback);
+        }
+    };
+
+    private final View.OnClickListener itemClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            int position = recyclerView != null ? recyclerView.getChildAdapterPosition(v) : RecyclerView.NO_POSITION;
+            if (position != RecyclerView.NO_POSITION && items.get(position) != null
+                    && !onRowClicked(position, items.get(position))) {
+                long itemId = getStableId(items.get(position));
+                setSelectedItemId(itemId);
+                if (dropDownView != null) {
+                    dropDownView.onListItemSelected(position, itemId);
+                }
+            }
+        }
+    };
+
+    private static class TextLayoutSpec {
+
+        final TextPaint paint;
+        final int width;
+
+        TextLayoutSpec(TextPaint paint, int width) {
+            this.paint = paint;
+            this.width = width;
+        }
+    }
+
+    private static class TextLayoutKey {
+
+        long itemId;
+        int labelIndex;
+        int width;
+
+        TextLayoutKey set(long itemId, int labelIndex, int width) {
+            this.itemId = itemId;
+            this.labelIndex = labelIndex;
+            this.width = width;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TextLayoutKey)) {
+                return false;
+            }
+            TextLayoutKey key = (TextLayoutKey) o;
+            return itemId == key.itemId && labelIndex == key.labelIndex && width == key.width;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (itemId ^ (itemId >>> 32));
+            result = 31 * result + labelIndex;
+            result = 31 * result + width;
+            return result;
+        }
+    }
+
+    private class ItemsDiffCallback extends DiffUtil.Callback {
+
+        private final List<T> oldItems;
+        private final List<T> newItems;
+
+        ItemsDiffCallback(List<T> oldItems, List<T> newItems) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return getStableId(oldItems.get(oldItemPosition)) == getStableId(newItems.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return DropDownListAdapter.this.areContentsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return DropDownListAdapter.this.getChangePayload(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+        }
+    }
+}
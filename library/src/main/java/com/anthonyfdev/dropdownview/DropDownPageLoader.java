@@ -0,0 +1,192 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import java.util.List;
+
+/**
+ * Loads the pages of a {@link DropDownDataSource} on {@link DropDownExecutors#io()} and hands them
+ * to the adapter on the main thread. Each page is requested once. The missing end of a page that
+ * comes back incomplete is asked for again after a growing delay, and a page that fails to load is
+ * asked for again the next time one of its rows is bound.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+final class DropDownPageLoader<T> {
+
+    private static final String TAG = "DropDownPageLoader";
+    private static final long RETRY_DELAY_MILLIS = 500L;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30000L;
+
+    interface Callback<T> {
+        /**
+         * Called on the main thread with the total number of items, before any page.
+         */
+        void onCountLoaded(int count);
+
+        /**
+         * Called on the main thread for every page, in any order.
+         */
+        void onPageLoaded(int startPosition, @NonNull List<T> items);
+    }
+
+    @NonNull
+    private final DropDownDataSource<T> dataSource;
+    private final int pageSize;
+    @NonNull
+    private final Callback<T> callback;
+    private final SparseBooleanArray requestedPages = new SparseBooleanArray();
+    private int count = -1;
+    private boolean isStarted;
+    private volatile boolean isCancelled;
+
+    DropDownPageLoader(@NonNull DropDownDataSource<T> dataSource, int pageSize, @NonNull Callback<T> callback) {
+        this.dataSource = dataSource;
+        this.pageSize = pageSize;
+        this.callback = callback;
+    }
+
+    boolean isStarted() {
+        return isStarted;
+    }
+
+    /**
+     * Loads the count, then the first page.
+     */
+    void start() {
+        if (isStarted) {
+            return;
+        }
+        isStarted = true;
+        DropDownExecutors.io().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled) {
+                    return;
+                }
+                final int loadedCount;
+                try {
+                    loadedCount = dataSource.loadCount();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load the item count", e);
+                    DropDownExecutors.mainThread().post(new Runnable() {
+                        @Override
+                        public void run() {
+                            // Started again the next time the drop down is attached
+                            isStarted = false;
+                        }
+                    });
+                    return;
+                }
+                DropDownExecutors.mainThread().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isCancelled) {
+                            return;
+                        }
+                        count = loadedCount;
+                        callback.onCountLoaded(loadedCount);
+                        loadAround(0);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Loads the page holding the position if it isn't loaded or loading yet, and the next page
+     * once the position is in the second half of its page.
+     */
+    void loadAround(int position) {
+        if (count < 0) {
+            return;
+        }
+        int page = position / pageSize;
+        loadPage(page);
+        if (position % pageSize >= pageSize / 2) {
+            loadPage(page + 1);
+        }
+    }
+
+    /**
+     * Drops the pages still loading, the loader can't be started again.
+     */
+    void cancel() {
+        isCancelled = true;
+    }
+
+    private void loadPage(int page) {
+        int startPosition = page * pageSize;
+        if (startPosition >= count || requestedPages.get(page)) {
+            return;
+        }
+        requestedPages.put(page, true);
+        loadRange(page, startPosition, Math.min(pageSize, count - startPosition), 0);
+    }
+
+    /**
+     * Loads part of a page, the page stays requested until it fails.
+     *
+     * @param retryCount how many times this range came back incomplete already
+     */
+    private void loadRange(final int page, final int startPosition, final int rangeCount, final int retryCount) {
+        DropDownExecutors.io().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled) {
+                    return;
+                }
+                List<T> loadedItems;
+                try {
+                    loadedItems = dataSource.loadRange(startPosition, rangeCount);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load items from " + startPosition, e);
+                    loadedItems = null;
+                }
+                final List<T> items = loadedItems;
+                DropDownExecutors.mainThread().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isCancelled) {
+                            return;
+                        }
+                        if (items == null) {
+                            // Asked for again when one of its rows is bound
+                            requestedPages.delete(page);
+                            return;
+                        }
+                        if (items.size() < rangeCount) {
+                            // Binding the rows mustn't ask for the page again, retry the missing end later
+                            retryRange(page, startPosition + items.size(), rangeCount - items.size(), retryCount + 1);
+                        }
+                        if (!items.isEmpty()) {
+                            callback.onPageLoaded(startPosition, items);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void retryRange(final int page, final int startPosition, final int rangeCount, final int retryCount) {
+        long delay = Math.min(RETRY_DELAY_MILLIS << Math.min(retryCount - 1, 16), MAX_RETRY_DELAY_MILLIS);
+        DropDownExecutors.mainThread().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCancelled) {
+                    loadRange(page, startPosition, rangeCount, retryCount);
+                }
+            }
+        }, delay);
+    }
+}
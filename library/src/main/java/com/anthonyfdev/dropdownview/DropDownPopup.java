@@ -0,0 +1,99 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.PopupWindow;
+
+/**
+ * Shows the expanded view of a {@link DropDownView} and its scrim in a separate window anchored
+ * below the header, so expanding and collapsing never change the size of the drop down in the
+ * host layout.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+class DropDownPopup {
+
+    private final PopupWindow popupWindow;
+    private final DropDownContainer container;
+    private final ColorDrawable scrimDrawable;
+    private final Rect displayFrame = new Rect();
+    private final int[] anchorLocation = new int[2];
+
+    DropDownPopup(@NonNull Context context, @ColorInt int backgroundColor, @ColorInt int scrimColor,
+                  @NonNull View.OnClickListener onScrimClickListener) {
+        container = new DropDownContainer(context);
+        container.setBackgroundColor(backgroundColor);
+        // Taps on the expanded view must not reach the scrim behind it
+        container.setClickable(true);
+        scrimDrawable = new ColorDrawable(scrimColor);
+        FrameLayout root = new FrameLayout(context);
+        root.setBackground(scrimDrawable);
+        root.setOnClickListener(onScrimClickListener);
+        root.addView(container, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP));
+        popupWindow = new PopupWindow(root, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+        // Not focusable, so taps on the header keep going to the host window
+        popupWindow.setFocusable(false);
+        popupWindow.setTouchable(true);
+        popupWindow.setOutsideTouchable(false);
+        popupWindow.setInputMethodMode(PopupWindow.INPUT_METHOD_NOT_NEEDED);
+        popupWindow.setAnimationStyle(0);
+    }
+
+    /**
+     * @return the container holding the expanded view inside the popup, it has no header.
+     */
+    @NonNull
+    DropDownContainer getContainer() {
+        return container;
+    }
+
+    boolean isShowing() {
+        return popupWindow.isShowing();
+    }
+
+    /**
+     * Sizes the popup to cover the width of the anchor and the rest of its window below it. The
+     * container inside is as wide as the anchor too.
+     */
+    void updateSize(@NonNull View anchor) {
+        anchor.getWindowVisibleDisplayFrame(displayFrame);
+        anchor.getLocationOnScreen(anchorLocation);
+        int height = Math.max(0, displayFrame.bottom - anchorLocation[1] - anchor.getHeight());
+        popupWindow.setWidth(anchor.getWidth());
+        popupWindow.setHeight(height);
+        container.setAvailableHeight(height);
+    }
+
+    void show(@NonNull View anchor) {
+        if (!popupWindow.isShowing()) {
+            updateSize(anchor);
+            popupWindow.showAsDropDown(anchor);
+        }
+    }
+
+    void dismiss() {
+        if (popupWindow.isShowing()) {
+            popupWindow.dismiss();
+        }
+    }
+
+    void setScrimAlpha(float alpha) {
+        scrimDrawable.setAlpha((int) (255 * alpha));
+    }
+}
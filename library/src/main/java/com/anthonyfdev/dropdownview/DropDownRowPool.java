@@ -0,0 +1,149 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+
+import java.util.ArrayDeque;
+
+/**
+ * Rows shared by the lists of several {@link DropDownView}s in list mode, built on a
+ * {@link RecyclerView.RecycledViewPool}. Rows recycled by one drop down are reused by the others,
+ * and rows can be created ahead of time while the main thread is idle, so expanding a drop down
+ * for the first time barely inflates anything. Only use it on the main thread.
+ * <p>
+ * The adapters of drop downs sharing a pool must use the same view types for the same rows.
+ *
+ * @author Anthony Fermin (Fuzz)
+ * @see DropDownView#setRowPool(DropDownRowPool)
+ */
+public class DropDownRowPool {
+
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    private final Context context;
+    private final RecyclerView.RecycledViewPool recycledViewPool = new RecyclerView.RecycledViewPool();
+    private final SparseIntArray maxRecycledViews = new SparseIntArray();
+    /**
+     * Rows prefetched per view type since the last {@link #clear()}, pooled or still pending.
+     */
+    private final SparseIntArray prefetchCounts = new SparseIntArray();
+    private final ArrayDeque<PrefetchRequest> prefetchRequests = new ArrayDeque<>();
+    @Nullable
+    private RecyclerView prefetchParent;
+    private boolean isPrefetchScheduled;
+
+    /**
+     * @param context the context rows are created with when prefetching, usually your activity
+     */
+    public DropDownRowPool(@NonNull Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @return the pool the lists of the drop downs share.
+     */
+    @NonNull
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return recycledViewPool;
+    }
+
+    /**
+     * Sets how many rows of a view type the pool keeps. Default is 5, prefetching raises it to the
+     * number of rows of the type prefetched in all, so later prefetches don't push out the rows of
+     * earlier ones.
+     *
+     * @param viewType the view type of the rows
+     * @param max      the maximum number of recycled rows to keep
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        maxRecycledViews.put(viewType, max);
+        recycledViewPool.setMaxRecycledViews(viewType, max);
+    }
+
+    /**
+     * Creates rows with the adapter once the main thread is idle, one per idle pass, and puts them
+     * in the pool.
+     *
+     * @param adapter  the adapter creating the rows, it isn't bound to any list by this
+     * @param viewType the view type of the rows
+     * @param count    how many rows to create
+     */
+    public void prefetch(@NonNull DropDownListAdapter<?, ?> adapter, int viewType, int count) {
+        if (count <= 0) {
+            return;
+        }
+        int prefetchCount = prefetchCounts.get(viewType) + count;
+        prefetchCounts.put(viewType, prefetchCount);
+        if (prefetchCount > maxRecycledViews.get(viewType, DEFAULT_MAX_RECYCLED_VIEWS)) {
+            setMaxRecycledViews(viewType, prefetchCount);
+        }
+        prefetchRequests.add(new PrefetchRequest(adapter, viewType, count));
+        if (!isPrefetchScheduled) {
+            isPrefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(prefetchIdleHandler);
+        }
+    }
+
+    /**
+     * Drops the pooled rows and the pending prefetches.
+     */
+    public void clear() {
+        Looper.myQueue().removeIdleHandler(prefetchIdleHandler);
+        isPrefetchScheduled = false;
+        prefetchRequests.clear();
+        prefetchCounts.clear();
+        recycledViewPool.clear();
+    }
+
+    private void prefetchRow() {
+        PrefetchRequest request = prefetchRequests.peek();
+        if (request == null) {
+            return;
+        }
+        if (prefetchParent == null) {
+            // Rows are inflated with a RecyclerView parent for their layout params
+            prefetchParent = new RecyclerView(context);
+            prefetchParent.setLayoutManager(new LinearLayoutManager(context));
+        }
+        recycledViewPool.putRecycledView(request.adapter.createViewHolder(prefetchParent, request.viewType));
+        if (--request.remaining == 0) {
+            prefetchRequests.poll();
+        }
+    }
+
+    private final MessageQueue.IdleHandler prefetchIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            prefetchRow();
+            isPrefetchScheduled = !prefetchRequests.isEmpty();
+            return isPrefetchScheduled;
+        }
+    };
+
+    private static class PrefetchRequest {
+
+        final DropDownListAdapter<?, ?> adapter;
+        final int viewType;
+        int remaining;
+
+        PrefetchRequest(DropDownListAdapter<?, ?> adapter, int viewType, int count) {
+            this.adapter = adapter;
+            this.viewType = viewType;
+            this.remaining = count;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * A light text view for the rows of the list mode of {@link DropDownView}. It draws a single
+ * {@link Layout}, which {@link DropDownListAdapter#bindLabel(DropDownTextView, Object, int)} lays
+ * out on a background thread ahead of time, so binding a row while the drop down expands doesn't
+ * measure any text. Without a precomputed layout it lays out its text itself when measured.
+ * <p>
+ * Supports <code>android:text</code>, <code>android:textSize</code>,
+ * <code>android:textColor</code> and <code>android:textStyle</code>.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+public class DropDownTextView extends View {
+
+    private static final float DEFAULT_TEXT_SIZE_SP = 14f;
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    @Nullable
+    private CharSequence text;
+    @Nullable
+    private Layout layout;
+    @Nullable
+    private OnTextLayoutListener onTextLayoutListener;
+    private long labelItemId;
+    private int labelIndex;
+
+    public DropDownTextView(Context context) {
+        this(context, null);
+    }
+
+    public DropDownTextView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public DropDownTextView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        float defaultTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DEFAULT_TEXT_SIZE_SP,
+                context.getResources().getDisplayMetrics());
+        TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.DropDownTextView, defStyleAttr, 0);
+        try {
+            text = a.getText(R.styleable.DropDownTextView_android_text);
+            textPaint.setTextSize(a.getDimension(R.styleable.DropDownTextView_android_textSize, defaultTextSize));
+            textPaint.setColor(a.getColor(R.styleable.DropDownTextView_android_textColor, Color.BLACK));
+            int textStyle = a.getInt(R.styleable.DropDownTextView_android_textStyle, Typeface.NORMAL);
+            if (textStyle != Typeface.NORMAL) {
+                textPaint.setTypeface(Typeface.defaultFromStyle(textStyle));
+            }
+        } finally {
+            a.recycle();
+        }
+    }
+
+    @Nullable
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Sets the text, laid out on the next measure.
+     */
+    public void setText(@Nullable CharSequence text) {
+        if (TextUtils.equals(this.text, text)) {
+            return;
+        }
+        this.text = text;
+        layout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Sets the text from a layout built with a paint of the same style as this view's, skipping
+     * the layout of the text. The layout is kept for narrower widths its lines fit in, and dropped
+     * and the text laid out again for any other width or once this view's paint changes.
+     *
+     * @param layout a layout of the text, usually precomputed on a background thread
+     */
+    public void setTextLayout(@NonNull Layout layout) {
+        if (layout == this.layout) {
+            return;
+        }
+        boolean isSameSize = this.layout != null && this.layout.getWidth() == layout.getWidth()
+                && this.layout.getHeight() == layout.getHeight();
+        text = layout.getText();
+        this.layout = layout;
+        if (!isSameSize) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    /**
+     * @return the paint the text is drawn with. Call {@link #requestLayout()} after changing it.
+     */
+    @NonNull
+    public TextPaint getTextPaint() {
+        return textPaint;
+    }
+
+    /**
+     * @param size text size in pixels
+     */
+    public void setTextSize(float size) {
+        textPaint.setTextSize(size);
+        onTextPaintChanged();
+    }
+
+    public void setTextColor(@ColorInt int color) {
+        textPaint.setColor(color);
+        invalidate();
+    }
+
+    public void setTypeface(@Nullable Typeface typeface) {
+        textPaint.setTypeface(typeface);
+        onTextPaintChanged();
+    }
+
+    void setOnTextLayoutListener(@Nullable OnTextLayoutListener onTextLayoutListener, long itemId, int labelIndex) {
+        this.onTextLayoutListener = onTextLayoutListener;
+        labelItemId = itemId;
+        this.labelIndex = labelIndex;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int availableWidth;
+        if (widthMode != MeasureSpec.UNSPECIFIED) {
+            availableWidth = Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding);
+        } else if (layout != null) {
+            availableWidth = layout.getWidth();
+        } else {
+            availableWidth = text != null ? (int) Math.ceil(Layout.getDesiredWidth(text, textPaint)) : 0;
+        }
+        Layout layout = getLayoutForWidth(availableWidth, widthMode != MeasureSpec.UNSPECIFIED);
+        int width;
+        if (widthMode == MeasureSpec.EXACTLY) {
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        } else {
+            width = (layout != null ? (int) Math.ceil(getMaxLineWidth(layout)) : 0) + horizontalPadding;
+            if (widthMode == MeasureSpec.AT_MOST) {
+                width = Math.min(width, MeasureSpec.getSize(widthMeasureSpec));
+            }
+        }
+        int height = (layout != null ? layout.getHeight() : 0) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (layout == null) {
+            return;
+        }
+        if (!isLaidOutWithTextPaint(layout)) {
+            // A precomputed layout draws with its own copy of the paint, a later color change
+            // doesn't resize the text so it is laid out again at the same width
+            layout = createLayout(text, textPaint, layout.getWidth());
+        }
+        canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        layout.draw(canvas);
+        canvas.restore();
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        // Screen readers read text views from their text, this view draws its own
+        info.setText(text);
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        if (!TextUtils.isEmpty(text)) {
+            event.getText().add(text);
+        }
+    }
+
+    /**
+     * @param isParentWidth true if the width comes from the parent rather than from the text, only
+     *                      those widths are the same for the labels of every row
+     */
+    @Nullable
+    private Layout getLayoutForWidth(int width, boolean isParentWidth) {
+        if (TextUtils.isEmpty(text)) {
+            layout = null;
+        } else if (layout == null || !canReuseLayout(layout, width) || !isLaidOutWithTextPaint(layout)) {
+            layout = createLayout(text, textPaint, width);
+            if (onTextLayoutListener != null && isParentWidth) {
+                onTextLayoutListener.onTextLayout(this, labelItemId, labelIndex, layout);
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Parents like RelativeLayout measure wrap_content children a second time at exactly the width
+     * they took, the lines break the same as long as they all fit and start on the left.
+     */
+    private static boolean canReuseLayout(@NonNull Layout layout, int width) {
+        if (layout.getWidth() == width) {
+            return true;
+        }
+        if (width > layout.getWidth()) {
+            return false;
+        }
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            if (layout.getLineWidth(i) > width || layout.getParagraphDirection(i) != Layout.DIR_LEFT_TO_RIGHT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the layout draws with {@link #textPaint} or with a paint that looks the same.
+     */
+    private boolean isLaidOutWithTextPaint(@NonNull Layout layout) {
+        return layout.getPaint() == textPaint || isSameStyle(layout.getPaint(), textPaint);
+    }
+
+    private void onTextPaintChanged() {
+        layout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    private static float getMaxLineWidth(@NonNull Layout layout) {
+        float maxLineWidth = 0f;
+        for (int i = 0; i < layout.getLineCount(); i++) {
+            maxLineWidth = Math.max(maxLineWidth, layout.getLineWidth(i));
+        }
+        return maxLineWidth;
+    }
+
+    /**
+     * Lays out text the way this view does, safe to call on any thread with a paint no other
+     * thread changes.
+     */
+    @NonNull
+    static Layout createLayout(@NonNull CharSequence text, @NonNull TextPaint paint, int width) {
+        return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+    }
+
+    /**
+     * @return true if text laid out with both paints looks the same.
+     */
+    static boolean isSameStyle(@NonNull TextPaint a, @NonNull TextPaint b) {
+        return a.getTextSize() == b.getTextSize() && a.getColor() == b.getColor()
+                && a.getTypeface() == b.getTypeface() && a.getFlags() == b.getFlags()
+                && a.getTextScaleX() == b.getTextScaleX() && a.getTextSkewX() == b.getTextSkewX();
+    }
+
+    /**
+     * Told about every layout the view had to build itself, so its owner can learn the paint and
+     * width of the label and precompute the next ones.
+     */
+    interface OnTextLayoutListener {
+        void onTextLayout(@NonNull DropDownTextView view, long itemId, int labelIndex, @NonNull Layout layout);
+    }
+}
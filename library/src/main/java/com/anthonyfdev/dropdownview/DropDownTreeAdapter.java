@@ -0,0 +1,303 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An adapter for a tree in the list mode of {@link DropDownView}. The visible nodes are flattened
+ * into the single recycled list of the drop down, so nested categories cost one list instead of
+ * drop downs inside drop downs.
+ * <p>
+ * Children are loaded from the {@link DropDownTreeDataSource} on a background thread the first
+ * time their parent is expanded and kept afterwards. Expanding or collapsing a node inserts or
+ * removes the range of its visible descendants, the other rows are left alone. Clicking a node with
+ * children toggles it, clicking any other node selects it like in a {@link DropDownListAdapter}.
+ * Nodes need stable ids that are unique across the whole tree. Set the tree with
+ * {@link #setTreeDataSource(DropDownTreeDataSource)} rather than with {@link #setItems(List)}.
+ *
+ * @param <T>  the node type
+ * @param <VH> the view holder type
+ * @author Anthony Fermin (Fuzz)
+ */
+public abstract class DropDownTreeAdapter<T, VH extends RecyclerView.ViewHolder> extends DropDownListAdapter<T, VH> {
+
+    /**
+     * Payload of the change notifications sent when a node gets expanded, collapsed or its
+     * children finish loading, to update an expand indicator without rebinding the whole row.
+     */
+    public static final Object PAYLOAD_NODE_STATE = new Object();
+    private static final String TAG = "DropDownTreeAdapter";
+
+    @Nullable
+    private DropDownTreeDataSource<T> dataSource;
+    private int dataSourceGeneration;
+    // One entry per loaded node, put in tree order, which a sparse array would keep shifting
+    private final HashMap<Long, Integer> depthsById = new HashMap<>();
+    private final HashMap<Long, List<T>> childrenById = new HashMap<>();
+    private final LongSparseArray<Boolean> expandedById = new LongSparseArray<>();
+    private final LongSparseArray<Boolean> loadingById = new LongSparseArray<>();
+
+    /**
+     * Replaces the tree with the one from the data source, loading its root nodes on a background
+     * thread. Must be called on the main thread.
+     *
+     * @param dataSource your data source, null to clear the tree
+     */
+    public void setTreeDataSource(@Nullable final DropDownTreeDataSource<T> dataSource) {
+        this.dataSource = dataSource;
+        final int generation = ++dataSourceGeneration;
+        depthsById.clear();
+        childrenById.clear();
+        expandedById.clear();
+        loadingById.clear();
+        setItems(Collections.<T>emptyList());
+        if (dataSource == null) {
+            return;
+        }
+        DropDownExecutors.io().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> roots;
+                try {
+                    roots = dataSource.loadChildren(null);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load the root nodes", e);
+                    return;
+                }
+                DropDownExecutors.mainThread().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == dataSourceGeneration) {
+                            for (int i = 0; i < roots.size(); i++) {
+                                depthsById.put(getStableId(roots.get(i)), 0);
+                            }
+                            insertItems(0, roots);
+                            bindHeaderView();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return the depth of the node at the position, 0 for root nodes. Use it to indent rows.
+     */
+    public int getDepth(int position) {
+        return getDepthForId(getItemId(position));
+    }
+
+    /**
+     * @return true if the node can be expanded, from {@link DropDownTreeDataSource#hasChildren(Object)}.
+     */
+    public boolean hasChildren(@NonNull T node) {
+        return dataSource != null && dataSource.hasChildren(node);
+    }
+
+    /**
+     * @return true if the node is expanded, its children may still be loading.
+     */
+    public boolean isNodeExpanded(@NonNull T node) {
+        return expandedById.get(getStableId(node), false);
+    }
+
+    /**
+     * @return true while the children of the node are being loaded.
+     */
+    public boolean isNodeLoading(@NonNull T node) {
+        return loadingById.get(getStableId(node), false);
+    }
+
+    /**
+     * Expands or collapses the node.
+     */
+    public void toggleNode(@NonNull T node) {
+        toggleNode(node, getPositionForId(getStableId(node)));
+    }
+
+    /**
+     * Shows the children of the node below it, loading them first if needed. Expanded
+     * descendants show their children again too. A node hidden under a collapsed parent only
+     * remembers it is expanded.
+     */
+    public void expandNode(@NonNull T node) {
+        expandNode(node, getPositionForId(getStableId(node)));
+    }
+
+    /**
+     * Removes the visible descendants of the node from the list. Expanded descendants stay
+     * expanded for when the node is expanded again.
+     */
+    public void collapseNode(@NonNull T node) {
+        collapseNode(node, getPositionForId(getStableId(node)));
+    }
+
+    @Override
+    boolean onRowClicked(int position, @NonNull T item) {
+        if (!hasChildren(item)) {
+            return false;
+        }
+        // The clicked position saves looking the node up in a list that may be huge
+        toggleNode(item, position);
+        return true;
+    }
+
+    private void toggleNode(@NonNull T node, int position) {
+        if (isNodeExpanded(node)) {
+            collapseNode(node, position);
+        } else {
+            expandNode(node, position);
+        }
+    }
+
+    private void expandNode(@NonNull T node, int position) {
+        long nodeId = getStableId(node);
+        if (dataSource == null || expandedById.get(nodeId, false) || !dataSource.hasChildren(node)) {
+            return;
+        }
+        expandedById.put(nodeId, true);
+        List<T> children = childrenById.get(nodeId);
+        if (children == null) {
+            loadChildren(node, nodeId);
+        } else if (position != RecyclerView.NO_POSITION) {
+            List<T> visibleNodes = new ArrayList<>();
+            addVisibleDescendants(visibleNodes, nodeId, getDepthForId(nodeId));
+            insertItems(position + 1, visibleNodes);
+        }
+        notifyNodeStateChanged(position);
+    }
+
+    private void collapseNode(@NonNull T node, int position) {
+        long nodeId = getStableId(node);
+        if (!expandedById.get(nodeId, false)) {
+            return;
+        }
+        expandedById.remove(nodeId);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int depth = getDepthForId(nodeId);
+        int end = position + 1;
+        while (end < getItemCount() && getDepth(end) > depth) {
+            end++;
+        }
+        removeItems(position + 1, end - position - 1);
+        notifyNodeStateChanged(position);
+    }
+
+    private void loadChildren(@NonNull final T node, final long nodeId) {
+        if (loadingById.get(nodeId, false)) {
+            return;
+        }
+        loadingById.put(nodeId, true);
+        final DropDownTreeDataSource<T> dataSource = this.dataSource;
+        final int generation = dataSourceGeneration;
+        DropDownExecutors.io().execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> loadedChildren;
+                try {
+                    loadedChildren = dataSource.loadChildren(node);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to load the children of node " + nodeId, e);
+                    loadedChildren = null;
+                }
+                final List<T> children = loadedChildren;
+                DropDownExecutors.mainThread().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != dataSourceGeneration) {
+                            return;
+                        }
+                        if (children != null) {
+                            onChildrenLoaded(nodeId, children);
+                        } else {
+                            onChildrenFailed(nodeId);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void onChildrenLoaded(long nodeId, @NonNull List<T> children) {
+        loadingById.remove(nodeId);
+        childrenById.put(nodeId, children);
+        int depth = getDepthForId(nodeId) + 1;
+        boolean hasSelectedItem = false;
+        for (int i = 0; i < children.size(); i++) {
+            long childId = getStableId(children.get(i));
+            depthsById.put(childId, depth);
+            hasSelectedItem |= childId == getSelectedItemId();
+        }
+        int position = getPositionForId(nodeId);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (expandedById.get(nodeId, false)) {
+            List<T> visibleNodes = new ArrayList<>();
+            addVisibleDescendants(visibleNodes, nodeId, depth - 1);
+            insertItems(position + 1, visibleNodes);
+            if (hasSelectedItem) {
+                bindHeaderView();
+            }
+        }
+        notifyNodeStateChanged(position);
+    }
+
+    /**
+     * Collapses the node again, expanding it retries loading its children.
+     */
+    private void onChildrenFailed(long nodeId) {
+        loadingById.remove(nodeId);
+        expandedById.remove(nodeId);
+        notifyNodeStateChanged(getPositionForId(nodeId));
+    }
+
+    /**
+     * Adds the loaded children of the node and, under the expanded ones, their own visible
+     * descendants, in display order.
+     */
+    private void addVisibleDescendants(@NonNull List<T> visibleNodes, long nodeId, int depth) {
+        List<T> children = childrenById.get(nodeId);
+        if (children == null) {
+            return;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            T child = children.get(i);
+            long childId = getStableId(child);
+            depthsById.put(childId, depth + 1);
+            visibleNodes.add(child);
+            if (expandedById.get(childId, false)) {
+                addVisibleDescendants(visibleNodes, childId, depth + 1);
+            }
+        }
+    }
+
+    private int getDepthForId(long nodeId) {
+        Integer depth = depthsById.get(nodeId);
+        return depth != null ? depth : 0;
+    }
+
+    private void notifyNodeStateChanged(int position) {
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, PAYLOAD_NODE_STATE);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.util.List;
+
+/**
+ * Loads the nodes of a {@link DropDownTreeAdapter} level by level on background threads, for
+ * nested categories such as venue, section and stand.
+ *
+ * @param <T> the node type
+ * @author Anthony Fermin (Fuzz)
+ */
+public interface DropDownTreeDataSource<T> {
+
+    /**
+     * Called on a background thread for the root nodes, then for the children of every node the
+     * first time it is expanded. If it throws, the node collapses again and is loaded again the
+     * next time it is expanded. If it throws for the root nodes, the tree stays empty.
+     *
+     * @param parent the node whose children to load, null for the root nodes
+     * @return the children in display order
+     */
+    @WorkerThread
+    @NonNull
+    List<T> loadChildren(@Nullable T parent);
+
+    /**
+     * Called on the main thread when binding and clicking rows, it must not load anything.
+     *
+     * @return true if the node can be expanded, even if its children aren't loaded yet
+     */
+    @MainThread
+    boolean hasChildren(@NonNull T node);
+}
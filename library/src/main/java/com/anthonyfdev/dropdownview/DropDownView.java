@@ -9,27 +9,51 @@
 package com.anthonyfdev.dropdownview;
 
 import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ObjectAnimator;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.support.annotation.AnimRes;
+import android.support.annotation.IntDef;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.support.v4.content.ContextCompat;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.transition.ChangeBounds;
 import android.transition.Fade;
 import android.transition.Transition;
 import android.transition.TransitionManager;
 import android.transition.TransitionSet;
+import android.transition.TransitionValues;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.AccelerateInterpolator;
-import android.widget.LinearLayout;
-import android.widget.RelativeLayout;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 
 /**
  * A view for displaying a typical drop down with built-in animations.
@@ -41,26 +65,220 @@ import android.widget.RelativeLayout;
  * @author Anthony Fermin (Fuzz)
  */
 
-public class DropDownView extends RelativeLayout {
+public class DropDownView extends ViewGroup {
+
+    /**
+     * Animates the drop down with a {@link ChangeBounds} transition, re-laying out the drop down on
+     * every frame. This is the default.
+     */
+    public static final int ANIMATION_MODE_TRANSITION = 0;
+    /**
+     * Measures the expanded view once and animates the clip bounds of the drop down instead, so
+     * frames only redraw and never request a layout. After the first expand, expanding and
+     * collapsing in this mode allocate nothing.
+     */
+    public static final int ANIMATION_MODE_CLIP_BOUNDS = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({ANIMATION_MODE_TRANSITION, ANIMATION_MODE_CLIP_BOUNDS})
+    public @interface AnimationMode {
+    }
+
+    /**
+     * Expands in place, the drop down grows and its overlay covers the space the parent gives it.
+     * This is the default.
+     */
+    public static final int PRESENTATION_MODE_INLINE = 0;
+    /**
+     * Shows the expanded view and the overlay in a separate window anchored below the header. The
+     * drop down keeps the size of its header, so expanding and collapsing never lay out the host
+     * layout again, and the overlay covers the rest of the window. Always animates like
+     * {@link #ANIMATION_MODE_CLIP_BOUNDS}.
+     */
+    public static final int PRESENTATION_MODE_POPUP = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({PRESENTATION_MODE_INLINE, PRESENTATION_MODE_POPUP})
+    public @interface PresentationMode {
+    }
+
+    /**
+     * Picks {@link #MOTION_MODE_FULL}, {@link #MOTION_MODE_FADE} or {@link #MOTION_MODE_NONE} from
+     * the device: no animation when the animator duration scale is 0, only the overlay fade on low
+     * RAM devices or for a minute after several expands and collapses dropped frames. This is the
+     * default.
+     */
+    public static final int MOTION_MODE_AUTO = 0;
+    /**
+     * Always animates the drop down with its {@link AnimationMode}.
+     */
+    public static final int MOTION_MODE_FULL = 1;
+    /**
+     * Shows and hides the expanded view at once and only fades the overlay.
+     */
+    public static final int MOTION_MODE_FADE = 2;
+    /**
+     * Expands and collapses at once, without any animation.
+     */
+    public static final int MOTION_MODE_NONE = 3;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({MOTION_MODE_AUTO, MOTION_MODE_FULL, MOTION_MODE_FADE, MOTION_MODE_NONE})
+    public @interface MotionMode {
+    }
+
+    /**
+     * The drop down is collapsed and not animating.
+     */
+    public static final int STATE_COLLAPSED = 0;
+    /**
+     * The drop down is animating or being dragged towards expanded.
+     */
+    public static final int STATE_EXPANDING = 1;
+    /**
+     * The drop down is expanded and not animating.
+     */
+    public static final int STATE_EXPANDED = 2;
+    /**
+     * The drop down is animating or being dragged towards collapsed.
+     */
+    public static final int STATE_COLLAPSING = 3;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({STATE_COLLAPSED, STATE_EXPANDING, STATE_EXPANDED, STATE_COLLAPSING})
+    public @interface DropDownState {
+    }
 
-    private static final long COLLAPSE_TRANSITION_DURATION = 250L;
-    private static final int DROP_DOWN_CONTAINER_MIN_DEFAULT_VIEWS = 1;
-    private static final int DROP_DOWN_HEADER_CONTAINER_MIN_DEFAULT_VIEWS = 0;
+    private static final int DEFAULT_EXPAND_DURATION = 300;
+    private static final int DEFAULT_COLLAPSE_DURATION = 250;
+    private static final int TOUCH_TARGET_NONE = 0;
+    private static final int TOUCH_TARGET_HEADER = 1;
+    private static final int TOUCH_TARGET_OVERLAY = 2;
+    private static final int QUEUED_STATE_NONE = 0;
+    private static final int QUEUED_STATE_EXPANDED = 1;
+    private static final int QUEUED_STATE_COLLAPSED = 2;
+    private static final int SLOW_ANIMATION_DROPPED_FRAMES = 3;
+    private static final int SLOW_ANIMATIONS_FOR_REDUCED_MOTION = 3;
+    private static final long SLOW_ANIMATION_RETRY_NANOS = 60 * 1000000000L;
+    /**
+     * Consecutive full animations that dropped frames, across all drop downs since the frame rate
+     * depends on the device more than on the drop down. Only used on the main thread.
+     */
+    private static int slowAnimationCount;
+    /**
+     * When the last full animation that dropped frames finished, reduced motion only lasts
+     * {@link #SLOW_ANIMATION_RETRY_NANOS} after it so a device that got busy for a while can
+     * get full animations back.
+     */
+    private static long lastSlowAnimationNanos;
     @Nullable
     private View expandedView;
     @Nullable
     private View headerView;
-    private ViewGroup dropDownHeaderContainer;
-    private LinearLayout dropDownContainer;
+    private DropDownContainer dropDownContainer;
+    private DropDownContainer expandedContainer;
+    @PresentationMode
+    private int presentationMode = PRESENTATION_MODE_INLINE;
+    @Nullable
+    private DropDownPopup popup;
     private boolean isExpanded;
     private View emptyDropDownSpace;
     private TransitionSet expandTransitionSet;
     private TransitionSet collapseTransitionSet;
-    private ObjectAnimator shadowFadeOutAnimator;
+    private ValueAnimator overlayFadeAnimator;
+    private boolean isOverlayFadingIn;
     private boolean isTransitioning;
+    private final ArrayList<Animator> transitionAnimators = new ArrayList<>();
     private DropDownListener dropDownListener;
+    @Nullable
+    private DropDownFrameTracker frameTracker;
+    @Nullable
+    private DropDownPerformanceListener performanceListener;
+    @MotionMode
+    private int motionMode = MOTION_MODE_AUTO;
+    private boolean isLowRamDevice;
+    private boolean isAnimatorDurationScaleZero;
+    private long tapEventTime;
     private int backgroundColor;
     private int overlayColor;
+    @LayoutRes
+    private int expandedViewLayoutResId;
+    @Nullable
+    private ExpandedViewProvider expandedViewProvider;
+    @Nullable
+    private OnExpandedViewReadyListener onExpandedViewReadyListener;
+    @Nullable
+    private AsyncLayoutInflater asyncLayoutInflater;
+    private boolean isCreatingExpandedView;
+    private boolean expandWhenExpandedViewReady;
+    private int expandedViewRequestId;
+    @AnimationMode
+    private int animationMode = ANIMATION_MODE_TRANSITION;
+    private ValueAnimator expandAnimator;
+    private float expandProgress;
+    private float animationStartProgress;
+    private float animationTargetProgress;
+    private long animatorStartNanos;
+    private int animatorFrameCount;
+    private long frameIntervalNanos;
+    private boolean isPublishingProgressOnly;
+    private long expandDuration = DEFAULT_EXPAND_DURATION;
+    private long collapseDuration = DEFAULT_COLLAPSE_DURATION;
+    private TimeInterpolator interpolator = new AccelerateDecelerateInterpolator();
+    @DropDownState
+    private int dropDownState = STATE_COLLAPSED;
+    private float publishedProgress;
+    @Nullable
+    private DropDownProgressListener progressListener;
+    private final Paint layerPaint = new Paint();
+    private boolean isContainerClipped;
+    private final Rect containerClipBounds = new Rect();
+    private int queuedState = QUEUED_STATE_NONE;
+    private final ArrayList<OnStateReachedListener> stateReachedListeners = new ArrayList<>();
+    private int measuredExpandedViewWidth = -1;
+    private int measuredExpandedViewHeight;
+    private boolean isPreMeasureScheduled;
+    private boolean isPreMeasuring;
+    private boolean isScrimEnabled;
+    private boolean isScrimVisible;
+    private final Paint scrimPaint = new Paint();
+    private final DecelerateInterpolator settleInterpolator = new DecelerateInterpolator();
+    private final AccelerateInterpolator overlayFadeOutInterpolator = new AccelerateInterpolator();
+    private final AccelerateDecelerateInterpolator overlayFadeInInterpolator = new AccelerateDecelerateInterpolator();
+    private int touchTarget = TOUCH_TARGET_NONE;
+    private float touchDownX;
+    private float touchDownY;
+    private long touchUpEventTime;
+    private int touchSlop;
+    private boolean isExpandPrepared;
+    private boolean isDragToExpandEnabled;
+    private boolean isDragging;
+    private float dragStartY;
+    private float dragStartProgress;
+    private int minimumFlingVelocity;
+    @Nullable
+    private VelocityTracker velocityTracker;
+    @Nullable
+    private DropDownListAdapter<?, ?> adapter;
+    @Nullable
+    private RecyclerView listView;
+    @Nullable
+    private OnItemSelectedListener onItemSelectedListener;
+    @Nullable
+    private DropDownRowPool rowPool;
+    private boolean collapseOnItemSelected = true;
+    private int maxExpandedHeight;
+    private float maxExpandedHeightFraction;
+    private long releaseExpandedViewDelay;
+    private boolean isListViewReleased;
+    private boolean isExpandedViewReleased;
+    private boolean isComponentCallbacksRegistered;
+    private int expandedViewReleaseCount;
+    private int expandedViewRebuildCount;
+    @Nullable
+    private Object boundModel;
+    @Nullable
+    private DropDownBinder<Object> binder;
 
     public DropDownView(Context context) {
         super(context);
@@ -93,13 +311,203 @@ public class DropDownView extends RelativeLayout {
     }
 
     /**
-     * @param dropDownListener your implementation of {@link DropDownListener}.
+     * @param dropDownListener your implementation of {@link DropDownListener}, or of
+     *                         {@link DropDownPrepareListener} to also hear about likely expands early.
      * @see DropDownListener
      */
     public void setDropDownListener(DropDownListener dropDownListener) {
         this.dropDownListener = dropDownListener;
     }
 
+    /**
+     * Reports frame timing and layout numbers for every expand and collapse, from the tap until the
+     * animation ends. Costs nothing while no listener is set.
+     *
+     * @param performanceListener your implementation of {@link DropDownPerformanceListener}, or null
+     *                            to stop tracking
+     */
+    public void setDropDownPerformanceListener(@Nullable DropDownPerformanceListener performanceListener) {
+        this.performanceListener = performanceListener;
+        updateFrameTracker();
+    }
+
+    /**
+     * @return how expanding and collapsing are animated. Default is {@link #MOTION_MODE_AUTO}.
+     * @see #setMotionMode(int)
+     */
+    @MotionMode
+    public int getMotionMode() {
+        return motionMode;
+    }
+
+    /**
+     * Sets how expanding and collapsing are animated, to save frames on slow devices or honor a
+     * user who turned animations off. Can also be set with the <code>motionMode</code> attribute.
+     * Dragging to expand always follows the finger.
+     *
+     * @param motionMode one of {@link #MOTION_MODE_AUTO}, {@link #MOTION_MODE_FULL},
+     *                   {@link #MOTION_MODE_FADE} or {@link #MOTION_MODE_NONE}
+     */
+    public void setMotionMode(@MotionMode int motionMode) {
+        this.motionMode = motionMode;
+        updateFrameTracker();
+    }
+
+    /**
+     * @return the motion mode the next expand or collapse uses, never {@link #MOTION_MODE_AUTO}.
+     */
+    @MotionMode
+    public int getActiveMotionMode() {
+        if (motionMode != MOTION_MODE_AUTO) {
+            return motionMode;
+        }
+        if (isAnimatorDurationScaleZero) {
+            return MOTION_MODE_NONE;
+        }
+        if (isLowRamDevice || isSlowForFullAnimations()) {
+            return MOTION_MODE_FADE;
+        }
+        return MOTION_MODE_FULL;
+    }
+
+    /**
+     * Reduced animations never tell whether the device keeps up again, so once the last slow
+     * animation is old enough the next one runs in full as a probe. The count stays at its limit
+     * meanwhile, a probe that drops frames again brings reduced motion back right away.
+     */
+    private static boolean isSlowForFullAnimations() {
+        return slowAnimationCount >= SLOW_ANIMATIONS_FOR_REDUCED_MOTION
+                && System.nanoTime() - lastSlowAnimationNanos < SLOW_ANIMATION_RETRY_NANOS;
+    }
+
+    private boolean isFrameTrackingNeeded() {
+        return performanceListener != null;
+    }
+
+    private void updateFrameTracker() {
+        if (!isFrameTrackingNeeded() && frameTracker != null) {
+            frameTracker.cancel();
+            frameTracker = null;
+        }
+    }
+
+    private void onFrameStats(@NonNull DropDownAnimationStats stats) {
+        if (performanceListener != null) {
+            performanceListener.onAnimationStats(stats);
+        }
+    }
+
+    /**
+     * Tells whether the device keeps up with full animations for {@link #MOTION_MODE_AUTO}, from
+     * the frames the expand animator got against the frames the display drew meanwhile. Costs a
+     * counter per frame instead of a frame callback.
+     */
+    private void onExpandAnimatorFinished() {
+        // Only full animations tell whether the device keeps up, reduced ones barely draw frames
+        if (motionMode != MOTION_MODE_AUTO || isPublishingProgressOnly || animatorFrameCount <= 1
+                || getActiveMotionMode() != MOTION_MODE_FULL) {
+            return;
+        }
+        if (frameIntervalNanos == 0) {
+            frameIntervalNanos = DropDownFrameTracker.getFrameIntervalNanos(getContext());
+        }
+        // The animator gets its first frame as it starts
+        long expectedFrameCount = Math.round((double) (System.nanoTime() - animatorStartNanos) / frameIntervalNanos) + 1;
+        if (expectedFrameCount - animatorFrameCount >= SLOW_ANIMATION_DROPPED_FRAMES) {
+            slowAnimationCount++;
+            lastSlowAnimationNanos = System.nanoTime();
+        } else {
+            slowAnimationCount = 0;
+        }
+    }
+
+    /**
+     * Reads the animator duration scale, which the user can only change in the system settings
+     * while the window is hidden.
+     */
+    private void updateAnimatorDurationScale() {
+        isAnimatorDurationScaleZero = Settings.Global.getFloat(getContext().getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 1f) == 0f;
+    }
+
+    /**
+     * Publishes the progress of the drop down, from 0 collapsed to 1 expanded, together with its
+     * state on every animation frame. Use it to drive chevrons, elevation or header alpha in sync
+     * with the drop down instead of running animators of their own.
+     *
+     * @param progressListener your implementation of {@link DropDownProgressListener}, or null
+     */
+    public void setDropDownProgressListener(@Nullable DropDownProgressListener progressListener) {
+        this.progressListener = progressListener;
+        if (progressListener != null) {
+            progressListener.onDropDownProgress(publishedProgress, dropDownState);
+        }
+    }
+
+    /**
+     * @return the current state, one of {@link #STATE_COLLAPSED}, {@link #STATE_EXPANDING},
+     * {@link #STATE_EXPANDED} or {@link #STATE_COLLAPSING}.
+     */
+    @DropDownState
+    public int getDropDownState() {
+        return dropDownState;
+    }
+
+    /**
+     * @return the duration of the expand animation in milliseconds. Default is 300.
+     */
+    public long getExpandDuration() {
+        return expandDuration;
+    }
+
+    /**
+     * Can also be set with the <code>expandDuration</code> attribute.
+     *
+     * @param expandDuration the duration of the expand animation in milliseconds
+     */
+    public void setExpandDuration(long expandDuration) {
+        this.expandDuration = expandDuration;
+        applyAnimationSettings();
+    }
+
+    /**
+     * @return the duration of the collapse animation in milliseconds. Default is 250.
+     */
+    public long getCollapseDuration() {
+        return collapseDuration;
+    }
+
+    /**
+     * Can also be set with the <code>collapseDuration</code> attribute.
+     *
+     * @param collapseDuration the duration of the collapse animation in milliseconds
+     */
+    public void setCollapseDuration(long collapseDuration) {
+        this.collapseDuration = collapseDuration;
+        applyAnimationSettings();
+    }
+
+    /**
+     * @return the interpolator of the expand and collapse animations. Default is an
+     * {@link AccelerateDecelerateInterpolator}.
+     */
+    @NonNull
+    public TimeInterpolator getInterpolator() {
+        return interpolator;
+    }
+
+    /**
+     * Sets the interpolator of the expand and collapse animations, the progress published to the
+     * {@link DropDownProgressListener} follows it. Can also be set with the
+     * <code>expandInterpolator</code> attribute.
+     *
+     * @param interpolator the interpolator to use
+     */
+    public void setInterpolator(@NonNull TimeInterpolator interpolator) {
+        this.interpolator = interpolator;
+        applyAnimationSettings();
+    }
+
     /**
      * @return true if the view is expanded, false otherwise.
      */
@@ -108,85 +516,1225 @@ public class DropDownView extends RelativeLayout {
     }
 
     /**
-     * Sets the view that will always be visible and expandable. The height of your provided view will
-     * determine the height of the entire {@link DropDownView} in collapsed mode
-     * (only if you set <code>wrap_content</code> to the {@link DropDownView}).
+     * @return the animation mode used to expand and collapse. Default is {@link #ANIMATION_MODE_TRANSITION}.
+     * @see #setAnimationMode(int)
+     */
+    @AnimationMode
+    public int getAnimationMode() {
+        return animationMode;
+    }
+
+    /**
+     * Sets how the drop down animates. {@link #ANIMATION_MODE_CLIP_BOUNDS} avoids a layout pass per
+     * frame and is better suited to expanded views holding lists. Can also be set with the
+     * <code>expandAnimationMode</code> attribute.
      *
-     * @param headerView your header view
+     * @param animationMode one of {@link #ANIMATION_MODE_TRANSITION} or {@link #ANIMATION_MODE_CLIP_BOUNDS}
      */
-    public void setHeaderView(@NonNull View headerView) {
-        this.headerView = headerView;
-        if (dropDownHeaderContainer.getChildCount() > DROP_DOWN_HEADER_CONTAINER_MIN_DEFAULT_VIEWS) {
-            for (int i = DROP_DOWN_HEADER_CONTAINER_MIN_DEFAULT_VIEWS; i < dropDownHeaderContainer.getChildCount(); i++) {
-                dropDownHeaderContainer.removeViewAt(i);
+    public void setAnimationMode(@AnimationMode int animationMode) {
+        this.animationMode = animationMode;
+    }
+
+    /**
+     * @return where the expanded view is shown. Default is {@link #PRESENTATION_MODE_INLINE}.
+     * @see #setPresentationMode(int)
+     */
+    @PresentationMode
+    public int getPresentationMode() {
+        return presentationMode;
+    }
+
+    /**
+     * Sets where the expanded view is shown. With {@link #PRESENTATION_MODE_POPUP} the expanded view
+     * and the overlay render in a window anchored below the header, so the host layout is never
+     * laid out again when expanding or collapsing. Can also be set with the
+     * <code>presentationMode</code> attribute. Only takes effect while collapsed.
+     *
+     * @param presentationMode one of {@link #PRESENTATION_MODE_INLINE} or {@link #PRESENTATION_MODE_POPUP}
+     */
+    public void setPresentationMode(@PresentationMode int presentationMode) {
+        if (isExpanded || expandAnimator.isRunning() || presentationMode == this.presentationMode) {
+            return;
+        }
+        this.presentationMode = presentationMode;
+        DropDownContainer previousContainer = expandedContainer;
+        expandedContainer = getContainerForPresentationMode();
+        expandedContainer.setMaxExpandedHeight(previousContainer.getMaxExpandedHeight());
+        expandedContainer.setMaxExpandedHeightFraction(previousContainer.getMaxExpandedHeightFraction());
+        if (expandedView != null) {
+            previousContainer.clearExpandedView();
+            attachExpandedView(expandedView);
+        }
+    }
+
+    private DropDownContainer getContainerForPresentationMode() {
+        if (presentationMode == PRESENTATION_MODE_POPUP) {
+            if (popup == null) {
+                popup = new DropDownPopup(getContext(), backgroundColor, overlayColor, overlayClickListener);
+                popup.getContainer().setOnLayoutRequestedListener(containerLayoutRequestedListener);
             }
+            return popup.getContainer();
         }
-        dropDownHeaderContainer.addView(headerView);
+        return dropDownContainer;
     }
 
     /**
-     * Sets the view that will always be visible only when the {@link DropDownView} is in expanded mode.
-     * The height of your provided view and your provided header view will determine the height of
-     * the entire {@link DropDownView} in expanded mode.
-     * (only if you set <code>wrap_content</code> to the {@link DropDownView}).
+     * @return true if the header can be dragged to expand and collapse. Default is false.
+     * @see #setDragToExpandEnabled(boolean)
+     */
+    public boolean isDragToExpandEnabled() {
+        return isDragToExpandEnabled;
+    }
+
+    /**
+     * When enabled, dragging the header vertically expands or collapses the drop down following the
+     * finger, and releasing it settles with a fling based on its velocity. Only works with
+     * {@link #ANIMATION_MODE_CLIP_BOUNDS}. Scrolling parents can't intercept touches that start on
+     * the header while this is enabled. Can also be set with the <code>dragToExpandEnabled</code>
+     * attribute.
      *
-     * @param expandedView your header view
+     * @param dragToExpandEnabled true to allow dragging the header
      */
-    public void setExpandedView(@NonNull View expandedView) {
-        this.expandedView = expandedView;
-        if (dropDownContainer.getChildCount() > DROP_DOWN_CONTAINER_MIN_DEFAULT_VIEWS) {
-            for (int i = DROP_DOWN_CONTAINER_MIN_DEFAULT_VIEWS; i < dropDownContainer.getChildCount(); i++) {
-                dropDownContainer.removeViewAt(i);
+    public void setDragToExpandEnabled(boolean dragToExpandEnabled) {
+        isDragToExpandEnabled = dragToExpandEnabled;
+    }
+
+    /**
+     * @return true if the overlay is drawn as a scrim by this view. Default is false.
+     * @see #setScrimEnabled(boolean)
+     */
+    public boolean isScrimEnabled() {
+        return isScrimEnabled;
+    }
+
+    /**
+     * When enabled, the overlay below the expanded drop down is drawn directly by this view and its
+     * fade animates a paint alpha, instead of using a separate full size overlay view. This saves a
+     * view and its layout and reduces overdraw while expanded. Can also be set with the
+     * <code>scrimEnabled</code> attribute. Only takes effect while collapsed.
+     *
+     * @param scrimEnabled true to draw the overlay as a scrim
+     */
+    public void setScrimEnabled(boolean scrimEnabled) {
+        if (!isExpanded) {
+            isScrimEnabled = scrimEnabled;
+        }
+    }
+
+    /**
+     * @return the header view that was set by you. Default is null.
+     * @see #setHeaderView(View)
+     */
+    @Nullable
+    public View getHeaderView() {
+        return headerView;
+    }
+
+    /**
+     * @return the expanded view, null if it wasn't set or hasn't been created yet.
+     * @see #setExpandedView(View)
+     */
+    @Nullable
+    public View getExpandedView() {
+        return expandedView;
+    }
+
+    /**
+     * Switches the drop down to list mode. The drop down creates and owns a {@link RecyclerView}
+     * that becomes the expanded view and displays the items of your adapter. Selecting a row updates
+     * the header view through {@link DropDownListAdapter#onBindHeaderView(View, Object)} and
+     * notifies the {@link OnItemSelectedListener}.
+     *
+     * @param adapter your adapter, null to detach the current one
+     * @see DropDownListAdapter
+     */
+    public void setAdapter(@Nullable DropDownListAdapter<?, ?> adapter) {
+        if (this.adapter != null) {
+            this.adapter.setDropDownView(null);
+        }
+        this.adapter = adapter;
+        if (adapter == null) {
+            isListViewReleased = false;
+            if (listView != null) {
+                listView.setAdapter(null);
             }
+            return;
+        }
+        if (listView == null) {
+            listView = createListView();
+        }
+        listView.setAdapter(adapter);
+        if (expandedView != listView) {
+            setExpandedView(listView);
+        }
+        adapter.setDropDownView(this);
+    }
+
+    private RecyclerView createListView() {
+        RecyclerView listView = new RecyclerView(getContext());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        listView.setLayoutManager(layoutManager);
+        listView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        if (rowPool != null) {
+            listView.setRecycledViewPool(rowPool.getRecycledViewPool());
+            // Give the rows back to the shared pool when this drop down goes away
+            layoutManager.setRecycleChildrenOnDetach(true);
+        }
+        return listView;
+    }
+
+    /**
+     * @return the row pool set with {@link #setRowPool(DropDownRowPool)}. Default is null.
+     */
+    @Nullable
+    public DropDownRowPool getRowPool() {
+        return rowPool;
+    }
+
+    /**
+     * Shares the rows of the list mode with other drop downs using the same pool. Rows created
+     * or recycled by any of them, or prefetched by the pool, are reused by all of them.
+     *
+     * @param rowPool the shared pool, null to stop sharing
+     * @see DropDownRowPool
+     */
+    public void setRowPool(@Nullable DropDownRowPool rowPool) {
+        this.rowPool = rowPool;
+        if (listView != null) {
+            listView.setRecycledViewPool(rowPool != null ? rowPool.getRecycledViewPool() : null);
+            ((LinearLayoutManager) listView.getLayoutManager()).setRecycleChildrenOnDetach(rowPool != null);
+        }
+    }
+
+    /**
+     * @return the adapter set with {@link #setAdapter(DropDownListAdapter)}. Default is null.
+     */
+    @Nullable
+    public DropDownListAdapter<?, ?> getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * @param onItemSelectedListener notified when the user selects a row in list mode
+     * @see #setAdapter(DropDownListAdapter)
+     */
+    public void setOnItemSelectedListener(@Nullable OnItemSelectedListener onItemSelectedListener) {
+        this.onItemSelectedListener = onItemSelectedListener;
+    }
+
+    /**
+     * @return true if the drop down collapses when the user selects a row in list mode. Default is true.
+     */
+    public boolean isCollapseOnItemSelected() {
+        return collapseOnItemSelected;
+    }
+
+    /**
+     * @param collapseOnItemSelected true to collapse the drop down when the user selects a row in list mode
+     */
+    public void setCollapseOnItemSelected(boolean collapseOnItemSelected) {
+        this.collapseOnItemSelected = collapseOnItemSelected;
+    }
+
+    /**
+     * @return the delay in milliseconds after which a collapsed drop down releases its expanded
+     * view, 0 if it never does. Default is 0.
+     * @see #setReleaseExpandedViewDelay(long)
+     */
+    public long getReleaseExpandedViewDelay() {
+        return releaseExpandedViewDelay;
+    }
+
+    /**
+     * Releases the expanded view once the drop down has stayed collapsed for the given delay. The
+     * expanded view is also released when the system asks the app to trim its memory. Only expanded
+     * views that can be rebuilt are released: ones set with {@link #setExpandedView(int)},
+     * {@link #setExpandedViewProvider(ExpandedViewProvider)} or the list of
+     * {@link #setAdapter(DropDownListAdapter)}. They are rebuilt on the next expand, and
+     * {@link OnExpandedViewReadyListener} is notified again. Can also be set with the
+     * <code>releaseExpandedViewDelay</code> attribute.
+     *
+     * @param releaseExpandedViewDelay delay in milliseconds, 0 to only release on memory pressure
+     */
+    public void setReleaseExpandedViewDelay(long releaseExpandedViewDelay) {
+        this.releaseExpandedViewDelay = releaseExpandedViewDelay;
+        scheduleExpandedViewRelease();
+    }
+
+    /**
+     * @return how many times the expanded view was released to save memory.
+     * @see #setReleaseExpandedViewDelay(long)
+     */
+    public int getExpandedViewReleaseCount() {
+        return expandedViewReleaseCount;
+    }
+
+    /**
+     * @return how many times a released expanded view was rebuilt.
+     * @see #setReleaseExpandedViewDelay(long)
+     */
+    public int getExpandedViewRebuildCount() {
+        return expandedViewRebuildCount;
+    }
+
+    /**
+     * @return the maximum height of the expanded view in pixels, 0 if there is none. Default is 0.
+     * @see #setMaxExpandedHeight(int)
+     */
+    public int getMaxExpandedHeight() {
+        return expandedContainer.getMaxExpandedHeight();
+    }
+
+    /**
+     * Caps the height of the expanded view. A <code>wrap_content</code> expanded view is measured
+     * with a bounded height, so a list inside it only lays out the rows that fit and scrolls within
+     * that height, keeping the cost of expanding constant as the number of items grows. Can also be
+     * set with the <code>maxExpandedHeight</code> attribute.
+     *
+     * @param maxExpandedHeight the maximum height in pixels, 0 for none
+     * @see #setMaxExpandedHeightFraction(float)
+     */
+    public void setMaxExpandedHeight(int maxExpandedHeight) {
+        expandedContainer.setMaxExpandedHeight(maxExpandedHeight);
+        measuredExpandedViewWidth = -1;
+    }
+
+    /**
+     * @return the maximum height of the expanded view as a fraction of the height available to this
+     * view, 0 if there is none. Default is 0.
+     * @see #setMaxExpandedHeightFraction(float)
+     */
+    public float getMaxExpandedHeightFraction() {
+        return expandedContainer.getMaxExpandedHeightFraction();
+    }
+
+    /**
+     * Same as {@link #setMaxExpandedHeight(int)}, relative to the height the parent makes available
+     * to this view. When both are set the smaller cap wins. Can also be set with the
+     * <code>maxExpandedHeightFraction</code> attribute.
+     *
+     * @param maxExpandedHeightFraction a fraction between 0 and 1, 0 for none
+     */
+    public void setMaxExpandedHeightFraction(float maxExpandedHeightFraction) {
+        expandedContainer.setMaxExpandedHeightFraction(maxExpandedHeightFraction);
+        measuredExpandedViewWidth = -1;
+    }
+
+    /**
+     * Sets the view that will always be visible and expandable. The height of your provided view will
+     * determine the height of the entire {@link DropDownView} in collapsed mode
+     * (only if you set <code>wrap_content</code> to the {@link DropDownView}).
+     *
+     * @param headerView your header view
+     */
+    public void setHeaderView(@NonNull View headerView) {
+        if (this.headerView != null && this.headerView != headerView) {
+            this.headerView.setOnClickListener(null);
+        }
+        this.headerView = headerView;
+        // A click on the header toggles the drop down, from a touch, a key or an accessibility service
+        headerView.setOnClickListener(headerClickListener);
+        headerView.setFocusable(true);
+        dropDownContainer.setHeaderView(headerView);
+        if (binder != null) {
+            binder.onBindHeaderView(headerView, boundModel);
+        }
+        if (adapter != null) {
+            adapter.bindHeaderView();
+        }
+    }
+
+    /**
+     * Sets the view that will always be visible only when the {@link DropDownView} is in expanded mode.
+     * The height of your provided view and your provided header view will determine the height of
+     * the entire {@link DropDownView} in expanded mode.
+     * (only if you set <code>wrap_content</code> to the {@link DropDownView}).
+     *
+     * @param expandedView your header view
+     */
+    public void setExpandedView(@NonNull View expandedView) {
+        clearExpandedViewSource();
+        if (expandedView != this.expandedView) {
+            attachExpandedView(expandedView);
+        }
+    }
+
+    /**
+     * Binds a model to the header view and the expanded view without replacing either, and jumps
+     * to the given state without animating. Meant for drop downs used as rows of a list, where
+     * the same views are bound to a new model on every scroll. An expanded view created later, like
+     * one rebuilt after a release, is bound to the last model when it is created.
+     *
+     * @param model    the model to display
+     * @param binder   binds the model to your header and expanded views
+     * @param expanded true to show the drop down expanded, false collapsed
+     * @param <T>      type of your model
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void bind(@NonNull T model, @NonNull DropDownBinder<T> binder, boolean expanded) {
+        this.boundModel = model;
+        this.binder = (DropDownBinder<Object>) binder;
+        if (headerView != null) {
+            binder.onBindHeaderView(headerView, model);
+        }
+        if (expandedView != null) {
+            binder.onBindExpandedView(expandedView, model);
+        }
+        setExpanded(expanded, false);
+    }
+
+    /**
+     * Expands or collapses the drop down.
+     *
+     * @param expanded true to expand, false to collapse
+     * @param animate  false to jump to the state at once, cancelling any running animation
+     * @see #expandDropDown()
+     * @see #collapseDropDown()
+     */
+    public void setExpanded(boolean expanded, boolean animate) {
+        if (animate) {
+            if (expanded) {
+                expandDropDown();
+            } else {
+                collapseDropDown();
+            }
+        } else {
+            jumpToState(expanded);
+        }
+    }
+
+    /**
+     * Expands or collapses the drop down and tells the listener once it has settled in that state.
+     * Requests made while an expand or collapse is running are merged into the last requested
+     * state, so any number of calls cost at most one more animation.
+     *
+     * @param expanded the state to reach
+     * @param animate  false to jump to the state at once, cancelling any running animation
+     * @param listener called once the drop down settles in the last requested state, right away if
+     *                 it is already there
+     */
+    public void setExpanded(boolean expanded, boolean animate, @Nullable OnStateReachedListener listener) {
+        if (listener != null) {
+            stateReachedListeners.add(listener);
+        }
+        setExpanded(expanded, animate);
+        dispatchStateReached();
+    }
+
+    /**
+     * @return true if expanded or expanding to the last requested state, including a request
+     * waiting for the running transition or for the expanded view to be created.
+     */
+    public boolean isExpandedTarget() {
+        if (queuedState != QUEUED_STATE_NONE) {
+            return queuedState == QUEUED_STATE_EXPANDED;
+        }
+        return isExpanded || expandWhenExpandedViewReady;
+    }
+
+    private void dispatchStateReached() {
+        // Listeners may request another state, which leaves the rest waiting for that one
+        while (!stateReachedListeners.isEmpty() && isSettled()) {
+            stateReachedListeners.remove(0).onStateReached(isExpanded);
+        }
+    }
+
+    private boolean isSettled() {
+        return queuedState == QUEUED_STATE_NONE && !expandWhenExpandedViewReady
+                && dropDownState == (isExpanded ? STATE_EXPANDED : STATE_COLLAPSED);
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private void jumpToState(boolean expanded) {
+        expandWhenExpandedViewReady = false;
+        queuedState = QUEUED_STATE_NONE;
+        removeCallbacks(applyQueuedStateRunnable);
+        if (isTransitioning) {
+            endTransitions();
+        }
+        expandAnimator.cancel();
+        isPublishingProgressOnly = false;
+        if (overlayFadeAnimator != null) {
+            overlayFadeAnimator.cancel();
+        }
+        isDragging = false;
+        recycleVelocityTracker();
+        if (expanded != isExpanded) {
+            setExpandedState(expanded);
+        }
+        if (expanded) {
+            if (adapter != null) {
+                adapter.dispatchDeferredChanges();
+            }
+            if (expandedView == null && hasExpandedViewSource()) {
+                // Shown as soon as it is created, since the drop down is expanded by then
+                createExpandedView();
+            }
+            showOverlay();
+        }
+        if (expandedView != null) {
+            expandedView.setVisibility(expanded ? View.VISIBLE : View.GONE);
+        }
+        expandProgress = expanded ? 1f : 0f;
+        onExpandAnimationEnd();
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private void endTransitions() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            TransitionManager.endTransitions(this);
+            TransitionManager.endTransitions(dropDownContainer);
+        } else {
+            // TransitionManager can't end transitions before API 23, ending their animators does
+            while (!transitionAnimators.isEmpty()) {
+                transitionAnimators.remove(transitionAnimators.size() - 1).end();
+            }
+        }
+        isTransitioning = false;
+    }
+
+    /**
+     * Same as {@link #setExpandedView(int, OnExpandedViewReadyListener)} without a listener.
+     *
+     * @param layoutResId layout resource of your expanded view
+     */
+    public void setExpandedView(@LayoutRes int layoutResId) {
+        setExpandedView(layoutResId, null);
+    }
+
+    /**
+     * Sets the expanded view from a layout resource. The layout is inflated off the main thread
+     * once the main thread becomes idle, or on the first call to {@link #expandDropDown()},
+     * whichever comes first. When expanding before the inflation has finished, the drop down waits
+     * for it and then animates. Any current expanded view is removed right away.
+     *
+     * @param layoutResId layout resource of your expanded view
+     * @param listener    optional listener notified on the main thread once the view is inflated
+     */
+    public void setExpandedView(@LayoutRes int layoutResId, @Nullable OnExpandedViewReadyListener listener) {
+        clearExpandedViewSource();
+        // The new layout replaces the current view, creation only happens without one
+        detachExpandedView();
+        expandedViewLayoutResId = layoutResId;
+        onExpandedViewReadyListener = listener;
+        scheduleExpandedViewCreation();
+    }
+
+    /**
+     * Sets a provider that lazily creates the expanded view. The provider is called on the main
+     * thread once it becomes idle, or on the first call to {@link #expandDropDown()}, whichever
+     * comes first. Any current expanded view is removed right away.
+     *
+     * @param provider your implementation of {@link ExpandedViewProvider}
+     * @see ExpandedViewProvider
+     */
+    public void setExpandedViewProvider(@NonNull ExpandedViewProvider provider) {
+        clearExpandedViewSource();
+        detachExpandedView();
+        expandedViewProvider = provider;
+        scheduleExpandedViewCreation();
+    }
+
+    private void attachExpandedView(@NonNull View expandedView) {
+        this.expandedView = expandedView;
+        measuredExpandedViewWidth = -1;
+        expandedContainer.setExpandedView(expandedView);
+        scheduleExpandedViewPreMeasure();
+        expandedView.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
+        scheduleExpandedViewRelease();
+    }
+
+    /**
+     * Animates and expands the drop down, displaying the provided expanded view. Must set expanded
+     * view before this for the drop down to expand.
+     * <p>
+     * With {@link #ANIMATION_MODE_CLIP_BOUNDS}, calling this while collapsing reverses the running
+     * animation from where it is. With {@link #ANIMATION_MODE_TRANSITION}, the call is applied once
+     * the running transition ends.
+     *
+     * @see #setExpandedView(View)
+     */
+    public void expandDropDown() {
+        if (isTransitioning) {
+            queuedState = isExpanded ? QUEUED_STATE_NONE : QUEUED_STATE_EXPANDED;
+        } else if (!isExpanded && expandedView == null && hasExpandedViewSource()) {
+            expandWhenExpandedViewReady = true;
+            createExpandedView();
+        } else if (!isExpanded && expandedView != null) {
+            @MotionMode int activeMotionMode = getActiveMotionMode();
+            if (activeMotionMode != MOTION_MODE_FULL) {
+                changeStateWithReducedMotion(true, activeMotionMode);
+                return;
+            }
+            if (adapter != null) {
+                adapter.dispatchDeferredChanges();
+            }
+            if (shouldAnimateClipBounds()) {
+                setExpandedState(true);
+                showExpandedViewForAnimation();
+                animateExpandProgressTo(1f, false);
+                return;
+            }
+            beginDelayedExpandTransition();
+            setExpandedState(true);
+            showOverlay();
+            expandedView.setVisibility(View.VISIBLE);
+            if (isScrimEnabled) {
+                startOverlayFadeAnimation(true);
+            }
+            publishTransitionProgress(1f);
+        }
+    }
+
+    /**
+     * Animates and collapses the drop down, displaying only the provided header view. Must set expanded
+     * view before this for the drop down to collapse.
+     * <p>
+     * With {@link #ANIMATION_MODE_CLIP_BOUNDS}, calling this while expanding reverses the running
+     * animation from where it is. With {@link #ANIMATION_MODE_TRANSITION}, the call is applied once
+     * the running transition ends.
+     *
+     * @see #setExpandedView(View)
+     */
+    public void collapseDropDown() {
+        expandWhenExpandedViewReady = false;
+        if (isTransitioning) {
+            queuedState = isExpanded ? QUEUED_STATE_COLLAPSED : QUEUED_STATE_NONE;
+        } else if (isExpanded && expandedView != null) {
+            @MotionMode int activeMotionMode = getActiveMotionMode();
+            if (activeMotionMode != MOTION_MODE_FULL) {
+                changeStateWithReducedMotion(false, activeMotionMode);
+                return;
+            }
+            if (shouldAnimateClipBounds()) {
+                setExpandedState(false);
+                showExpandedViewForAnimation();
+                animateExpandProgressTo(0f, false);
+                return;
+            }
+            beginDelayedCollapseTransition();
+            expandedView.setVisibility(View.GONE);
+            setExpandedState(false);
+            publishTransitionProgress(0f);
+        }
+    }
+
+    /**
+     * Jumps to the state, fading the overlay in or out afterwards with {@link #MOTION_MODE_FADE}.
+     */
+    private void changeStateWithReducedMotion(boolean expanded, @MotionMode int activeMotionMode) {
+        // The popup window is dismissed when collapsed, its scrim can't fade out after that
+        boolean canFadeOverlayOut = !expanded && isOverlayVisible();
+        jumpToState(expanded);
+        if (activeMotionMode != MOTION_MODE_FADE || overlayFadeAnimator == null) {
+            return;
+        }
+        if (expanded) {
+            setOverlayAlpha(0f);
+            startOverlayFadeAnimation(true);
+        } else if (canFadeOverlayOut) {
+            showOverlay();
+            startOverlayFadeAnimation(false);
+        }
+    }
+
+    private void setExpandedState(boolean expanded) {
+        removeCallbacks(releaseExpandedViewRunnable);
+        if (frameTracker == null && isFrameTrackingNeeded()) {
+            frameTracker = new DropDownFrameTracker(getContext(), frameStatsListener);
+        }
+        if (frameTracker != null) {
+            frameTracker.start(expanded, getTapTimeNanos());
+        }
+        if (dropDownListener != null) {
+            if (expanded) {
+                dropDownListener.onExpandDropDown();
+            } else {
+                dropDownListener.onCollapseDropDown();
+            }
+        }
+        isExpanded = expanded;
+        publishProgress(expandProgress, expanded ? STATE_EXPANDING : STATE_COLLAPSING);
+    }
+
+    private long getTapTimeNanos() {
+        long now = System.nanoTime();
+        if (tapEventTime == 0) {
+            return now;
+        }
+        // Event times use the uptime clock, move the tap to the nanoTime clock
+        return now - (SystemClock.uptimeMillis() - tapEventTime) * 1000000L;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (frameTracker != null) {
+            frameTracker.onMeasure();
+        }
+        measureChild(dropDownContainer, widthMeasureSpec, heightMeasureSpec);
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int verticalPadding = getPaddingTop() + getPaddingBottom();
+        int width = dropDownContainer.getMeasuredWidth() + horizontalPadding;
+        int height = dropDownContainer.getMeasuredHeight() + verticalPadding;
+        if (isOverlayVisible() && MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            // The overlay covers all the space available below the drop down
+            height = Math.max(height, MeasureSpec.getSize(heightMeasureSpec));
+        }
+        setMeasuredDimension(
+                resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+        if (emptyDropDownSpace.getVisibility() != View.GONE) {
+            emptyDropDownSpace.measure(
+                    MeasureSpec.makeMeasureSpec(getMeasuredWidth() - horizontalPadding, MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(getMeasuredHeight() - verticalPadding, MeasureSpec.EXACTLY));
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (frameTracker != null) {
+            frameTracker.onLayout();
+        }
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        dropDownContainer.layout(left, top,
+                left + dropDownContainer.getMeasuredWidth(), top + dropDownContainer.getMeasuredHeight());
+        if (emptyDropDownSpace.getVisibility() != View.GONE) {
+            emptyDropDownSpace.layout(left, top,
+                    left + emptyDropDownSpace.getMeasuredWidth(), top + emptyDropDownSpace.getMeasuredHeight());
+        }
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (w != oldw) {
+            scheduleExpandedViewPreMeasure();
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.isExpanded = isExpanded;
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        jumpToState(savedState.isExpanded);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateAnimatorDurationScale();
+        if (adapter != null) {
+            adapter.startLoadingIfAttached();
+        }
+        if (!isComponentCallbacksRegistered) {
+            getContext().getApplicationContext().registerComponentCallbacks(componentCallbacks);
+            isComponentCallbacksRegistered = true;
+        }
+        if (popup != null && presentationMode == PRESENTATION_MODE_POPUP && isExpanded) {
+            // Expanded while detached, show the popup once this view is laid out in its window
+            post(showPopupRunnable);
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == View.VISIBLE) {
+            updateAnimatorDurationScale();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (isComponentCallbacksRegistered) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(componentCallbacks);
+            isComponentCallbacksRegistered = false;
+        }
+        removeCallbacks(releaseExpandedViewRunnable);
+        removeCallbacks(showPopupRunnable);
+        Looper.myQueue().removeIdleHandler(preMeasureIdleHandler);
+        isPreMeasureScheduled = false;
+        if (frameTracker != null) {
+            frameTracker.cancel();
+        }
+        if (popup != null && (isExpanded || popup.isShowing())) {
+            // The popup window can't outlive the drop down, collapse without animating
+            expandAnimator.cancel();
+            isDragging = false;
+            if (isExpanded) {
+                setExpandedState(false);
+            }
+            expandProgress = 0f;
+            onExpandAnimationEnd();
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (isScrimVisible && scrimPaint.getAlpha() > 0) {
+            canvas.drawRect(0, getScrimTop(), getWidth(), getHeight(), scrimPaint);
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        // Taps on the header and the overlay reach them as clicks, only drags of the header are
+        // taken from the children
+        trackHeaderTouch(event);
+        return isDragging;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (isDragging) {
+            if (velocityTracker != null) {
+                velocityTracker.addMovement(event);
+            }
+            return onDragTouchEvent(event);
+        }
+        int action = event.getActionMasked();
+        if (touchTarget == TOUCH_TARGET_HEADER) {
+            // Nothing in the header took the touch, it can still be dragged
+            if (action != MotionEvent.ACTION_DOWN) {
+                trackHeaderTouch(event);
+            }
+            return true;
+        }
+        if (action == MotionEvent.ACTION_DOWN && isScrimVisible && event.getY() >= getScrimTop()) {
+            touchTarget = TOUCH_TARGET_OVERLAY;
+        }
+        if (touchTarget == TOUCH_TARGET_OVERLAY) {
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                touchTarget = TOUCH_TARGET_NONE;
+                if (action == MotionEvent.ACTION_UP && event.getY() >= getScrimTop()) {
+                    touchUpEventTime = event.getEventTime();
+                    performClick();
+                }
+            }
+            return true;
+        }
+        if (!isOverlayVisible()) {
+            return super.onTouchEvent(event);
+        }
+        // While expanded, touches that reach this view must not fall through to the views behind it
+        return true;
+    }
+
+    /**
+     * Collapses the drop down when the scrim is visible, the scrim is drawn by this view.
+     */
+    @Override
+    public boolean performClick() {
+        boolean handled = super.performClick();
+        if (isScrimVisible) {
+            tapEventTime = consumeTouchUpEventTime();
+            collapseDropDown();
+            tapEventTime = 0;
+            return true;
+        }
+        return handled;
+    }
+
+    /**
+     * Watches the touches that start in the header, preparing the expand on touch down and
+     * starting a drag once they move vertically.
+     */
+    private void trackHeaderTouch(MotionEvent event) {
+        float x = event.getX();
+        float y = event.getY();
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            touchDownX = x;
+            touchDownY = y;
+            touchUpEventTime = 0;
+            touchTarget = TOUCH_TARGET_NONE;
+            if (isInHeader(x, y)) {
+                touchTarget = TOUCH_TARGET_HEADER;
+                if (!isExpanded && !isTransitioning) {
+                    // Use the time until the finger is lifted to get the expanded content ready
+                    prepareExpand();
+                }
+                if (isDragToExpandEnabled) {
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                    velocityTracker = VelocityTracker.obtain();
+                }
+            }
+        } else if (action == MotionEvent.ACTION_UP) {
+            // Read by the click listeners, which run right after the touch
+            touchUpEventTime = event.getEventTime();
+        }
+        if (touchTarget != TOUCH_TARGET_HEADER || isDragging) {
+            return;
+        }
+        if (velocityTracker != null) {
+            velocityTracker.addMovement(event);
+        }
+        if (action == MotionEvent.ACTION_MOVE) {
+            float dx = Math.abs(x - touchDownX);
+            float dy = Math.abs(y - touchDownY);
+            if (dy > touchSlop && dy > dx && canDrag()) {
+                startDrag(y);
+            } else if (dx > touchSlop || dy > touchSlop) {
+                // The gesture turned into a scroll, it won't be a click
+                cancelPreparedExpand();
+                touchTarget = TOUCH_TARGET_NONE;
+                if (isDragToExpandEnabled) {
+                    // Nor a drag, let a scrolling parent take it
+                    getParent().requestDisallowInterceptTouchEvent(false);
+                }
+                recycleVelocityTracker();
+            }
+        } else if (action == MotionEvent.ACTION_UP) {
+            recycleVelocityTracker();
+            if (!isInHeader(x, y) || headerView == null || !headerView.isClickable()) {
+                // No click will follow to use the prepared expand
+                cancelPreparedExpand();
+            }
+            touchTarget = TOUCH_TARGET_NONE;
+        } else if (action == MotionEvent.ACTION_CANCEL) {
+            recycleVelocityTracker();
+            cancelPreparedExpand();
+            touchTarget = TOUCH_TARGET_NONE;
+        }
+    }
+
+    /**
+     * @return the time of the touch that led to the current click, 0 for clicks from a keyboard
+     * or an accessibility service.
+     */
+    private long consumeTouchUpEventTime() {
+        long eventTime = touchUpEventTime;
+        touchUpEventTime = 0;
+        return eventTime;
+    }
+
+    private boolean canDrag() {
+        return isDragToExpandEnabled && !isTransitioning && expandedView != null && shouldAnimateClipBounds();
+    }
+
+    private void startDrag(float y) {
+        isDragging = true;
+        expandAnimator.cancel();
+        if (adapter != null && expandedView.getVisibility() != View.VISIBLE) {
+            adapter.dispatchDeferredChanges();
+        }
+        showExpandedViewForAnimation();
+        dragStartY = y;
+        dragStartProgress = expandProgress;
+    }
+
+    private boolean onDragTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                float progress = dragStartProgress + (event.getY() - dragStartY) / Math.max(1, measuredExpandedViewHeight);
+                setExpandProgress(Math.max(0f, Math.min(1f, progress)));
+                break;
+            case MotionEvent.ACTION_UP:
+                boolean expand = expandProgress > 0.5f;
+                float velocityY = 0f;
+                if (velocityTracker != null) {
+                    velocityTracker.computeCurrentVelocity(1000);
+                    velocityY = velocityTracker.getYVelocity();
+                    if (Math.abs(velocityY) > minimumFlingVelocity) {
+                        expand = velocityY > 0;
+                    }
+                }
+                endDrag(expand, velocityY);
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                endDrag(isExpanded, 0f);
+                break;
+        }
+        return true;
+    }
+
+    private void endDrag(boolean expand, float velocityY) {
+        isDragging = false;
+        touchTarget = TOUCH_TARGET_NONE;
+        recycleVelocityTracker();
+        if (expand) {
+            isExpandPrepared = false;
+        } else {
+            cancelPreparedExpand();
+        }
+        if (expand != isExpanded) {
+            setExpandedState(expand);
+        }
+        settleExpandProgressTo(expand ? 1f : 0f, velocityY);
+    }
+
+    private void recycleVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    /**
+     * Starts the work an expand will need: creating the expanded view, binding the rows that
+     * changed while collapsed and measuring the expanded view. None of it has to be undone if the
+     * expand doesn't happen.
+     */
+    private void prepareExpand() {
+        isExpandPrepared = true;
+        removeCallbacks(releaseExpandedViewRunnable);
+        if (expandedView == null && hasExpandedViewSource()) {
+            createExpandedView();
+        }
+        if (adapter != null) {
+            adapter.dispatchDeferredChanges();
+        }
+        preMeasureExpandedView();
+        if (dropDownListener instanceof DropDownPrepareListener) {
+            ((DropDownPrepareListener) dropDownListener).onPrepareExpand();
+        }
+    }
+
+    private void cancelPreparedExpand() {
+        if (isExpandPrepared) {
+            isExpandPrepared = false;
+            if (dropDownListener instanceof DropDownPrepareListener) {
+                ((DropDownPrepareListener) dropDownListener).onCancelPrepareExpand();
+            }
+        }
+    }
+
+    private boolean isInHeader(float x, float y) {
+        return headerView != null
+                && x >= dropDownContainer.getLeft() && x < dropDownContainer.getRight()
+                && y >= dropDownContainer.getTop() && y < dropDownContainer.getTop() + dropDownContainer.getHeaderBottom();
+    }
+
+    private void toggleDropDown() {
+        if (isExpandedTarget()) {
+            collapseDropDown();
+        } else {
+            expandDropDown();
+        }
+    }
+
+    private boolean isOverlayVisible() {
+        return isScrimVisible || emptyDropDownSpace.getVisibility() != View.GONE;
+    }
+
+    private int getScrimTop() {
+        if (isContainerClipped) {
+            return dropDownContainer.getTop() + containerClipBounds.bottom;
+        }
+        return dropDownContainer.getBottom();
+    }
+
+    private void showOverlay() {
+        if (popup != null && presentationMode == PRESENTATION_MODE_POPUP) {
+            // A window can't be anchored to a view without a window, like a row being bound
+            if (isAttachedToWindow()) {
+                popup.show(this);
+            }
+        } else if (isScrimEnabled) {
+            isScrimVisible = true;
+            // The scrim is part of this view, which collapses the drop down in performClick
+            setClickable(true);
+            setFocusable(true);
+            requestLayout();
+            invalidate();
+        } else {
+            emptyDropDownSpace.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void hideOverlay() {
+        if (popup != null) {
+            popup.dismiss();
+        }
+        if (isScrimVisible) {
+            isScrimVisible = false;
+            setClickable(false);
+            setFocusable(false);
+            requestLayout();
+            invalidate();
+        }
+        emptyDropDownSpace.setVisibility(View.GONE);
+        setOverlayAlpha(1f);
+    }
+
+    private void setOverlayAlpha(float alpha) {
+        if (popup != null && presentationMode == PRESENTATION_MODE_POPUP) {
+            popup.setScrimAlpha(alpha);
+        } else if (isScrimEnabled) {
+            scrimPaint.setAlpha((int) (Color.alpha(overlayColor) * alpha));
+            invalidate();
+        } else {
+            emptyDropDownSpace.setAlpha(alpha);
+        }
+    }
+
+    private void startOverlayFadeAnimation(boolean fadeIn) {
+        isOverlayFadingIn = fadeIn;
+        overlayFadeAnimator.setDuration(fadeIn ? expandDuration : collapseDuration);
+        overlayFadeAnimator.setInterpolator(fadeIn ? overlayFadeInInterpolator : overlayFadeOutInterpolator);
+        overlayFadeAnimator.start();
+    }
+
+    void onListItemSelected(int position, long itemId) {
+        if (onItemSelectedListener != null) {
+            onItemSelectedListener.onItemSelected(position, itemId);
+        }
+        if (collapseOnItemSelected) {
+            collapseDropDown();
+        }
+    }
+
+    private boolean hasExpandedViewSource() {
+        return expandedViewLayoutResId != 0 || expandedViewProvider != null || isListViewReleased;
+    }
+
+    private boolean canReleaseExpandedView() {
+        return expandedView != null && !isExpanded && !isTransitioning && !isDragging && !isExpandPrepared
+                && !expandAnimator.isRunning() && !isCreatingExpandedView
+                && (expandedViewLayoutResId != 0 || expandedViewProvider != null || (adapter != null && expandedView == listView));
+    }
+
+    private void scheduleExpandedViewRelease() {
+        removeCallbacks(releaseExpandedViewRunnable);
+        if (releaseExpandedViewDelay > 0 && canReleaseExpandedView()) {
+            postDelayed(releaseExpandedViewRunnable, releaseExpandedViewDelay);
         }
-        dropDownContainer.addView(expandedView);
-        expandedView.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
     }
 
     /**
-     * Animates and expands the drop down, displaying the provided expanded view. Must set expanded
-     * view before this for the drop down to expand.
-     *
-     * @see #setExpandedView(View)
+     * Drops the collapsed expanded view and everything it holds, it is rebuilt from its source on
+     * the next expand.
      */
-    public void expandDropDown() {
-        if (!isExpanded && !isTransitioning && expandedView != null) {
-            beginDelayedExpandTransition();
-            if (dropDownListener != null) {
-                dropDownListener.onExpandDropDown();
-            }
-            emptyDropDownSpace.setVisibility(View.VISIBLE);
-            expandedView.setVisibility(View.VISIBLE);
-            isExpanded = true;
+    private void releaseExpandedView() {
+        removeCallbacks(releaseExpandedViewRunnable);
+        if (!canReleaseExpandedView()) {
+            return;
         }
+        boolean isListView = expandedView == listView;
+        detachExpandedView();
+        if (isListView) {
+            // Recycles the rows, they go away with the list
+            listView.setAdapter(null);
+            listView = null;
+            isListViewReleased = true;
+        }
+        isExpandedViewReleased = true;
+        expandedViewReleaseCount++;
     }
 
     /**
-     * Animates and collapses the drop down, displaying only the provided header view. Must set expanded
-     * view before this for the drop down to collapse.
-     *
-     * @see #setExpandedView(View)
+     * Removes the current expanded view and forgets its measure, the next one is measured again.
      */
-    public void collapseDropDown() {
-        if (isExpanded && !isTransitioning && expandedView != null) {
-            beginDelayedCollapseTransition();
-            expandedView.setVisibility(View.GONE);
-            if (dropDownListener != null) {
-                dropDownListener.onCollapseDropDown();
+    private void detachExpandedView() {
+        if (expandedView == null) {
+            return;
+        }
+        removeCallbacks(releaseExpandedViewRunnable);
+        Looper.myQueue().removeIdleHandler(preMeasureIdleHandler);
+        isPreMeasureScheduled = false;
+        expandedContainer.clearExpandedView();
+        expandedView = null;
+        measuredExpandedViewWidth = -1;
+        measuredExpandedViewHeight = 0;
+    }
+
+    private void clearExpandedViewSource() {
+        Looper.myQueue().removeIdleHandler(createExpandedViewIdleHandler);
+        expandedViewRequestId++;
+        expandedViewLayoutResId = 0;
+        expandedViewProvider = null;
+        onExpandedViewReadyListener = null;
+        isCreatingExpandedView = false;
+        expandWhenExpandedViewReady = false;
+        isListViewReleased = false;
+        isExpandedViewReleased = false;
+    }
+
+    private void scheduleExpandedViewCreation() {
+        Looper.myQueue().removeIdleHandler(createExpandedViewIdleHandler);
+        Looper.myQueue().addIdleHandler(createExpandedViewIdleHandler);
+    }
+
+    private void createExpandedView() {
+        if (isCreatingExpandedView || !hasExpandedViewSource()) {
+            return;
+        }
+        Looper.myQueue().removeIdleHandler(createExpandedViewIdleHandler);
+        isCreatingExpandedView = true;
+        if (isListViewReleased) {
+            isListViewReleased = false;
+            listView = createListView();
+            listView.setAdapter(adapter);
+            onExpandedViewCreated(listView);
+        } else if (expandedViewProvider != null) {
+            onExpandedViewCreated(expandedViewProvider.onCreateExpandedView(expandedContainer));
+        } else {
+            if (asyncLayoutInflater == null) {
+                asyncLayoutInflater = new AsyncLayoutInflater(getContext());
             }
-            isExpanded = false;
+            final int requestId = expandedViewRequestId;
+            asyncLayoutInflater.inflate(expandedViewLayoutResId, expandedContainer, new AsyncLayoutInflater.OnInflateFinishedListener() {
+                @Override
+                public void onInflateFinished(@NonNull View view, int resid, ViewGroup parent) {
+                    if (requestId == expandedViewRequestId) {
+                        onExpandedViewCreated(view);
+                    }
+                }
+            });
+        }
+    }
+
+    private void onExpandedViewCreated(@NonNull View view) {
+        isCreatingExpandedView = false;
+        if (isExpandedViewReleased) {
+            isExpandedViewReleased = false;
+            expandedViewRebuildCount++;
+        }
+        attachExpandedView(view);
+        if (binder != null) {
+            binder.onBindExpandedView(view, boundModel);
+        }
+        if (onExpandedViewReadyListener != null) {
+            onExpandedViewReadyListener.onExpandedViewReady(view);
+        }
+        if (expandWhenExpandedViewReady) {
+            expandWhenExpandedViewReady = false;
+            expandDropDown();
         }
     }
 
     private void init(Context context, AttributeSet attrs) {
-        handleAttrs(context, attrs);
-        inflate(getContext(), R.layout.view_ddv_drop_down, this);
-        bindViews();
+        DropDownViewDefaults defaults = DropDownViewDefaults.get(context);
+        touchSlop = defaults.touchSlop;
+        isLowRamDevice = defaults.isLowRamDevice;
+        minimumFlingVelocity = defaults.minimumFlingVelocity;
+        handleAttrs(context, attrs, defaults);
+        createViews(context);
         setupViews();
         setupTransitionSets();
     }
 
-    private void handleAttrs(Context context, AttributeSet attrs) {
+    private void handleAttrs(Context context, AttributeSet attrs, DropDownViewDefaults defaults) {
         if (context != null && attrs != null) {
             TypedArray a = context.getTheme().obtainStyledAttributes(
                     attrs,
@@ -194,33 +1742,59 @@ public class DropDownView extends RelativeLayout {
                     0, 0);
 
             try {
-                backgroundColor = a.getColor(R.styleable.DropDownView_containerBackgroundColor, ContextCompat.getColor(context, R.color.dDVColorPrimary));
-                overlayColor = a.getColor(R.styleable.DropDownView_overlayColor, ContextCompat.getColor(context, R.color.dDVTransparentGray));
+                backgroundColor = a.getColor(R.styleable.DropDownView_containerBackgroundColor, defaults.backgroundColor);
+                overlayColor = a.getColor(R.styleable.DropDownView_overlayColor, defaults.overlayColor);
+                //noinspection WrongConstant
+                animationMode = a.getInt(R.styleable.DropDownView_expandAnimationMode, ANIMATION_MODE_TRANSITION);
+                isScrimEnabled = a.getBoolean(R.styleable.DropDownView_scrimEnabled, false);
+                maxExpandedHeight = a.getDimensionPixelSize(R.styleable.DropDownView_maxExpandedHeight, 0);
+                maxExpandedHeightFraction = a.getFloat(R.styleable.DropDownView_maxExpandedHeightFraction, 0f);
+                isDragToExpandEnabled = a.getBoolean(R.styleable.DropDownView_dragToExpandEnabled, false);
+                //noinspection WrongConstant
+                presentationMode = a.getInt(R.styleable.DropDownView_presentationMode, PRESENTATION_MODE_INLINE);
+                releaseExpandedViewDelay = a.getInt(R.styleable.DropDownView_releaseExpandedViewDelay, 0);
+                //noinspection WrongConstant
+                motionMode = a.getInt(R.styleable.DropDownView_motionMode, MOTION_MODE_AUTO);
+                expandDuration = a.getInt(R.styleable.DropDownView_expandDuration, DEFAULT_EXPAND_DURATION);
+                collapseDuration = a.getInt(R.styleable.DropDownView_collapseDuration, DEFAULT_COLLAPSE_DURATION);
+                @AnimRes int interpolatorResId = a.getResourceId(R.styleable.DropDownView_expandInterpolator, 0);
+                if (interpolatorResId != 0) {
+                    interpolator = AnimationUtils.loadInterpolator(context, interpolatorResId);
+                }
             } finally {
                 a.recycle();
             }
         }
         if (backgroundColor == 0) {
-            backgroundColor = ContextCompat.getColor(context, R.color.dDVColorPrimary);
+            backgroundColor = defaults.backgroundColor;
         }
         if (overlayColor == 0) {
-            overlayColor = ContextCompat.getColor(context, R.color.dDVTransparentGray);
+            overlayColor = defaults.overlayColor;
         }
     }
 
     private void setupViews() {
-        emptyDropDownSpace.setOnClickListener(emptyDropDownSpaceClickListener);
-        dropDownHeaderContainer.setOnClickListener(dropDownHeaderClickListener);
-
         dropDownContainer.setBackgroundColor(backgroundColor);
-        dropDownHeaderContainer.setBackgroundColor(backgroundColor);
         emptyDropDownSpace.setBackgroundColor(overlayColor);
+        scrimPaint.setColor(overlayColor);
+        expandedContainer = getContainerForPresentationMode();
+        expandedContainer.setMaxExpandedHeight(maxExpandedHeight);
+        expandedContainer.setMaxExpandedHeightFraction(maxExpandedHeightFraction);
     }
 
-    private void bindViews() {
-        dropDownContainer = (LinearLayout) findViewById(R.id.drop_down_container);
-        emptyDropDownSpace = findViewById(R.id.empty_drop_down_space);
-        dropDownHeaderContainer = (ViewGroup) findViewById(R.id.drop_down_header);
+    /**
+     * Builds the overlay and the container in code, cheaper than inflating them from XML.
+     */
+    private void createViews(Context context) {
+        emptyDropDownSpace = new View(context);
+        emptyDropDownSpace.setVisibility(View.GONE);
+        emptyDropDownSpace.setOnClickListener(overlayClickListener);
+        emptyDropDownSpace.setFocusable(true);
+        addView(emptyDropDownSpace, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        // Will have one child for Header/Collapsed View and one after it for Expanded View
+        dropDownContainer = new DropDownContainer(context);
+        dropDownContainer.setOnLayoutRequestedListener(containerLayoutRequestedListener);
+        addView(dropDownContainer, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
     }
 
     @TargetApi(Build.VERSION_CODES.KITKAT)
@@ -233,42 +1807,278 @@ public class DropDownView extends RelativeLayout {
     @TargetApi(Build.VERSION_CODES.KITKAT)
     private void beginDelayedCollapseTransition() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            shadowFadeOutAnimator.start();
+            startOverlayFadeAnimation(false);
             TransitionManager.beginDelayedTransition(dropDownContainer, collapseTransitionSet);
         } else {
-            emptyDropDownSpace.setVisibility(View.GONE);
+            hideOverlay();
+        }
+    }
+
+    private boolean shouldAnimateClipBounds() {
+        // Clip bounds can only be animated once the drop down has been laid out at least once
+        return (animationMode == ANIMATION_MODE_CLIP_BOUNDS || presentationMode == PRESENTATION_MODE_POPUP)
+                && dropDownContainer.getWidth() > 0;
+    }
+
+    private int getExpandedViewHeight() {
+        int width = getExpandedContainerWidth();
+        if (expandedView != null && width != measuredExpandedViewWidth) {
+            if (popup != null && presentationMode == PRESENTATION_MODE_POPUP && !popup.isShowing()) {
+                popup.updateSize(this);
+            }
+            measuredExpandedViewHeight = expandedContainer.measureExpandedView(width);
+            measuredExpandedViewWidth = width;
+        }
+        return measuredExpandedViewHeight;
+    }
+
+    /**
+     * @return the width the container of the expanded view is laid out with, the width of this
+     * view for the popup, which is sized to it.
+     */
+    private int getExpandedContainerWidth() {
+        if (popup != null && presentationMode == PRESENTATION_MODE_POPUP) {
+            return getWidth();
+        }
+        return dropDownContainer.getWidth();
+    }
+
+    /**
+     * Measures and lays out the collapsed expanded view once the main thread is idle, so expanding
+     * doesn't have to do it in the same frame as the tap.
+     */
+    private void scheduleExpandedViewPreMeasure() {
+        if (!isPreMeasureScheduled && expandedView != null && !isExpanded) {
+            isPreMeasureScheduled = true;
+            Looper.myQueue().addIdleHandler(preMeasureIdleHandler);
+        }
+    }
+
+    private void preMeasureExpandedView() {
+        if (!isExpanded && !isTransitioning && expandedView != null && expandedView.getVisibility() != View.VISIBLE
+                && dropDownContainer.getWidth() > 0 && getExpandedContainerWidth() != measuredExpandedViewWidth) {
+            isPreMeasuring = true;
+            getExpandedViewHeight();
+            expandedContainer.layoutExpandedView();
+            isPreMeasuring = false;
+        }
+    }
+
+    /**
+     * Makes the expanded view visible under a clip at the current progress, if it isn't already.
+     */
+    private void showExpandedViewForAnimation() {
+        if (expandedView.getVisibility() != View.VISIBLE) {
+            // Read the pre-measured height before the visibility change requests a new layout
+            getExpandedViewHeight();
+            expandProgress = 0f;
+            showOverlay();
+            expandedView.setVisibility(View.VISIBLE);
+        } else if (!isContainerClipped) {
+            measuredExpandedViewHeight = expandedView.getHeight();
+        }
+        // Pass a paint, View.setLayerType() allocates one otherwise
+        expandedView.setLayerType(View.LAYER_TYPE_HARDWARE, layerPaint);
+        setExpandProgress(expandProgress);
+    }
+
+    /**
+     * @param progressOnly true to only publish the progress, while a transition animates the views
+     */
+    private void animateExpandProgressTo(float targetProgress, boolean progressOnly) {
+        startExpandAnimator(targetProgress, progressOnly, getExpandAnimationDuration(targetProgress), interpolator);
+    }
+
+    /**
+     * Animates the rest of a drag from the speed the finger left it at, slowing down until the
+     * target. It never takes longer than the configured duration would for the remaining distance.
+     *
+     * @param velocityY the vertical velocity of the finger in pixels per second
+     */
+    private void settleExpandProgressTo(float targetProgress, float velocityY) {
+        long duration = getExpandAnimationDuration(targetProgress);
+        boolean isMovingToTarget = velocityY != 0f && (velocityY > 0f) == (targetProgress > expandProgress);
+        if (!isMovingToTarget) {
+            startExpandAnimator(targetProgress, false, duration, interpolator);
+            return;
+        }
+        float remainingPixels = Math.abs(targetProgress - expandProgress) * measuredExpandedViewHeight;
+        // A decelerate interpolator starts at twice its average speed
+        long flingDuration = (long) (2000f * remainingPixels / Math.abs(velocityY));
+        startExpandAnimator(targetProgress, false, Math.min(duration, flingDuration), settleInterpolator);
+    }
+
+    private long getExpandAnimationDuration(float targetProgress) {
+        long duration = targetProgress > expandProgress ? expandDuration : collapseDuration;
+        return (long) (duration * Math.abs(targetProgress - expandProgress));
+    }
+
+    private void startExpandAnimator(float targetProgress, boolean progressOnly, long duration,
+                                     @NonNull TimeInterpolator interpolator) {
+        expandAnimator.cancel();
+        isPublishingProgressOnly = progressOnly;
+        if (targetProgress == expandProgress) {
+            onExpandAnimationEnd();
+            return;
+        }
+        // The animator always runs from 0 to 1, changing its values would allocate new keyframes
+        animationStartProgress = expandProgress;
+        animationTargetProgress = targetProgress;
+        animatorStartNanos = System.nanoTime();
+        animatorFrameCount = 0;
+        expandAnimator.setInterpolator(interpolator);
+        expandAnimator.setDuration(duration);
+        expandAnimator.start();
+    }
+
+    /**
+     * Publishes the progress of a transition with the expand animator, only when someone listens.
+     * Transitions run the whole way, so the progress starts from the opposite end.
+     */
+    private void publishTransitionProgress(float targetProgress) {
+        if (progressListener == null) {
+            expandProgress = targetProgress;
+            return;
+        }
+        expandProgress = 1f - targetProgress;
+        animateExpandProgressTo(targetProgress, true);
+    }
+
+    private void setExpandProgress(float progress) {
+        boolean isIncreasing = progress > expandProgress;
+        expandProgress = progress;
+        if (!isPublishingProgressOnly) {
+            setContainerClipBottom(expandedContainer.getHeaderBottom() + Math.round(measuredExpandedViewHeight * progress));
+            setOverlayAlpha(progress);
+        }
+        if (isDragging) {
+            publishProgress(progress, isIncreasing ? STATE_EXPANDING : STATE_COLLAPSING);
+        } else {
+            publishProgress(progress, isExpanded ? STATE_EXPANDING : STATE_COLLAPSING);
+        }
+    }
+
+    private void publishProgress(float progress, @DropDownState int state) {
+        if (progress == publishedProgress && state == dropDownState) {
+            return;
+        }
+        publishedProgress = progress;
+        dropDownState = state;
+        if (progressListener != null) {
+            progressListener.onDropDownProgress(progress, state);
+        }
+        if (state == STATE_EXPANDED || state == STATE_COLLAPSED) {
+            dispatchStateReached();
+        }
+    }
+
+    private void onExpandAnimationEnd() {
+        if (isDragging) {
+            return;
+        }
+        if (isPublishingProgressOnly) {
+            // The transition takes care of the views
+            isPublishingProgressOnly = false;
+            publishProgress(expandProgress, isExpanded ? STATE_EXPANDED : STATE_COLLAPSED);
+            return;
+        }
+        publishProgress(expandProgress, isExpanded ? STATE_EXPANDED : STATE_COLLAPSED);
+        if (frameTracker != null) {
+            frameTracker.finish();
+        }
+        if (expandedView != null) {
+            expandedView.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+        isContainerClipped = false;
+        // Leave an unbounded clip instead of clearing it, clearing it would make the next
+        // animation allocate a new Rect in View.setClipBounds()
+        containerClipBounds.set(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        expandedContainer.setClipBounds(containerClipBounds);
+        if (isExpanded) {
+            setOverlayAlpha(1f);
+        } else {
+            if (expandedView != null) {
+                expandedView.setVisibility(View.GONE);
+            }
+            hideOverlay();
+            scheduleExpandedViewRelease();
         }
     }
 
+    private void setContainerClipBottom(int bottom) {
+        isContainerClipped = true;
+        // The popup container may not be laid out yet on the first frame, use the width it gets
+        containerClipBounds.set(0, 0, getExpandedContainerWidth(), bottom);
+        expandedContainer.setClipBounds(containerClipBounds);
+    }
+
+    private void setupExpandAnimator() {
+        // Only an update listener: animators copy their list of AnimatorListeners on every start
+        // and end, and the boxed animated value is a new Float on every frame
+        expandAnimator = ValueAnimator.ofFloat(0f, 1f);
+        expandAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                float fraction = animation.getAnimatedFraction();
+                animatorFrameCount++;
+                setExpandProgress(animationStartProgress + (animationTargetProgress - animationStartProgress) * fraction);
+                if (fraction >= 1f) {
+                    onExpandAnimatorFinished();
+                    onExpandAnimationEnd();
+                }
+            }
+        });
+    }
+
     private void setupTransitionSets() {
+        setupExpandAnimator();
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            shadowFadeOutAnimator = ObjectAnimator.ofFloat(emptyDropDownSpace, View.ALPHA, 0f);
-            shadowFadeOutAnimator.setDuration(COLLAPSE_TRANSITION_DURATION);
-            shadowFadeOutAnimator.setInterpolator(new AccelerateInterpolator());
-            shadowFadeOutAnimator.addListener(new AnimatorListenerAdapter() {
+            overlayFadeAnimator = ValueAnimator.ofFloat(0f, 1f);
+            overlayFadeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
                 @Override
-                public void onAnimationEnd(Animator animation) {
-                    super.onAnimationEnd(animation);
-                    emptyDropDownSpace.setVisibility(View.GONE);
-                    emptyDropDownSpace.setAlpha(1f);
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    float fraction = animation.getAnimatedFraction();
+                    setOverlayAlpha(isOverlayFadingIn ? fraction : 1f - fraction);
+                    if (fraction >= 1f && !isExpanded) {
+                        hideOverlay();
+                    }
                 }
             });
             expandTransitionSet = createTransitionSet();
             collapseTransitionSet = createTransitionSet();
-            collapseTransitionSet.setDuration(COLLAPSE_TRANSITION_DURATION);
+        }
+        applyAnimationSettings();
+    }
+
+    private void applyAnimationSettings() {
+        expandAnimator.setInterpolator(interpolator);
+        if (expandTransitionSet != null) {
+            expandTransitionSet.setDuration(expandDuration);
+            expandTransitionSet.setInterpolator(interpolator);
+            collapseTransitionSet.setDuration(collapseDuration);
+            collapseTransitionSet.setInterpolator(interpolator);
         }
     }
 
     @TargetApi(Build.VERSION_CODES.KITKAT)
     private TransitionSet createTransitionSet() {
-        ChangeBounds changeBounds = new ChangeBounds();
+        ChangeBounds changeBounds = new ChangeBounds() {
+            @Override
+            public Animator createAnimator(ViewGroup sceneRoot, TransitionValues startValues, TransitionValues endValues) {
+                return trackTransitionAnimator(super.createAnimator(sceneRoot, startValues, endValues));
+            }
+        };
         changeBounds.addTarget(dropDownContainer);
-        Fade fade = new Fade();
+        Fade fade = new Fade() {
+            @Override
+            public Animator createAnimator(ViewGroup sceneRoot, TransitionValues startValues, TransitionValues endValues) {
+                return trackTransitionAnimator(super.createAnimator(sceneRoot, startValues, endValues));
+            }
+        };
         fade.addTarget(emptyDropDownSpace);
         TransitionSet transitionSet = new TransitionSet();
         transitionSet.addTransition(changeBounds);
         transitionSet.addTransition(fade);
-        transitionSet.setInterpolator(new AccelerateDecelerateInterpolator());
         transitionSet.addListener(new TransitionListenerAdapter() {
             @Override
             public void onTransitionStart(Transition transition) {
@@ -280,29 +2090,173 @@ public class DropDownView extends RelativeLayout {
             public void onTransitionEnd(Transition transition) {
                 super.onTransitionEnd(transition);
                 isTransitioning = false;
+                transitionAnimators.clear();
+                if (!isPublishingProgressOnly) {
+                    publishProgress(expandProgress, isExpanded ? STATE_EXPANDED : STATE_COLLAPSED);
+                }
+                if (frameTracker != null) {
+                    frameTracker.finish();
+                }
+                if (!isExpanded) {
+                    scheduleExpandedViewRelease();
+                }
+                if (queuedState != QUEUED_STATE_NONE) {
+                    post(applyQueuedStateRunnable);
+                }
             }
         });
         return transitionSet;
     }
 
-    private final OnClickListener dropDownHeaderClickListener = new OnClickListener() {
+    private final DropDownPerformanceListener frameStatsListener = new DropDownPerformanceListener() {
         @Override
-        public void onClick(View v) {
-            if (isExpanded) {
-                collapseDropDown();
-            } else {
-                expandDropDown();
+        public void onAnimationStats(@NonNull DropDownAnimationStats stats) {
+            onFrameStats(stats);
+        }
+    };
+
+    private final Runnable releaseExpandedViewRunnable = new Runnable() {
+        @Override
+        public void run() {
+            releaseExpandedView();
+        }
+    };
+
+    private final ComponentCallbacks2 componentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                releaseExpandedView();
             }
         }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+
+        }
+
+        @Override
+        public void onLowMemory() {
+            releaseExpandedView();
+        }
     };
 
-    private final OnClickListener emptyDropDownSpaceClickListener = new OnClickListener() {
+    private final OnClickListener headerClickListener = new OnClickListener() {
         @Override
         public void onClick(View v) {
+            isExpandPrepared = false;
+            tapEventTime = consumeTouchUpEventTime();
+            toggleDropDown();
+            tapEventTime = 0;
+        }
+    };
+
+    private final OnClickListener overlayClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            tapEventTime = consumeTouchUpEventTime();
             collapseDropDown();
+            tapEventTime = 0;
+        }
+    };
+
+    private final Runnable showPopupRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (isExpanded && popup != null && presentationMode == PRESENTATION_MODE_POPUP) {
+                popup.show(DropDownView.this);
+            }
+        }
+    };
+
+    private final Runnable applyQueuedStateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int state = queuedState;
+            queuedState = QUEUED_STATE_NONE;
+            if (state == QUEUED_STATE_EXPANDED) {
+                expandDropDown();
+            } else if (state == QUEUED_STATE_COLLAPSED) {
+                collapseDropDown();
+            }
+            dispatchStateReached();
+        }
+    };
+
+    private final MessageQueue.IdleHandler preMeasureIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            isPreMeasureScheduled = false;
+            preMeasureExpandedView();
+            return false;
+        }
+    };
+
+    private final DropDownContainer.OnLayoutRequestedListener containerLayoutRequestedListener = new DropDownContainer.OnLayoutRequestedListener() {
+        @Override
+        public void onExpandedViewLayoutRequested() {
+            // The expanded content changed, measure it again. Width changes are caught when measuring
+            if (!isExpanded && !isPreMeasuring) {
+                measuredExpandedViewWidth = -1;
+                scheduleExpandedViewPreMeasure();
+            }
+        }
+    };
+
+    private final MessageQueue.IdleHandler createExpandedViewIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            if (expandedView == null) {
+                createExpandedView();
+            }
+            return false;
         }
     };
 
+    static class SavedState extends BaseSavedState {
+
+        boolean isExpanded;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            isExpanded = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(isExpanded ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * Remembers the animators of the running transitions before API 23, where only they can end
+     * the transitions early.
+     */
+    @Nullable
+    private Animator trackTransitionAnimator(@Nullable Animator animator) {
+        if (animator != null && Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            transitionAnimators.add(animator);
+        }
+        return animator;
+    }
+
     @TargetApi(Build.VERSION_CODES.KITKAT)
     class TransitionListenerAdapter implements Transition.TransitionListener {
 
@@ -347,4 +2301,130 @@ public class DropDownView extends RelativeLayout {
          */
         void onCollapseDropDown();
     }
+
+    /**
+     * A listener notified when the user selects a row in list mode.
+     *
+     * @see #setAdapter(DropDownListAdapter)
+     */
+    public interface OnItemSelectedListener {
+        /**
+         * @param position the adapter position of the selected item
+         * @param itemId   the stable id of the selected item
+         */
+        void onItemSelected(int position, long itemId);
+    }
+
+    /**
+     * A {@link DropDownListener} that is also told when an expand is likely to follow, as soon as
+     * the header is touched and before the click fires. Use it to start loading data early.
+     */
+    public interface DropDownPrepareListener extends DropDownListener {
+        /**
+         * Called when the header of a collapsed drop down is touched down.
+         */
+        void onPrepareExpand();
+
+        /**
+         * Called when the touch that triggered {@link #onPrepareExpand()} turned into a scroll or was
+         * canceled, so no expand will follow from it.
+         */
+        void onCancelPrepareExpand();
+    }
+
+    /**
+     * A listener for the progress of a {@link DropDownView}, called on every animation frame.
+     *
+     * @see #setDropDownProgressListener(DropDownProgressListener)
+     */
+    public interface DropDownProgressListener {
+        /**
+         * Called on the main thread whenever the progress or the state changes.
+         *
+         * @param progress from 0 collapsed to 1 expanded, following the interpolator
+         * @param state    one of {@link #STATE_COLLAPSED}, {@link #STATE_EXPANDING},
+         *                 {@link #STATE_EXPANDED} or {@link #STATE_COLLAPSING}
+         */
+        void onDropDownProgress(float progress, @DropDownState int state);
+    }
+
+    /**
+     * A listener for {@link #setExpanded(boolean, boolean, OnStateReachedListener)}.
+     */
+    public interface OnStateReachedListener {
+        /**
+         * Called on the main thread once the drop down has settled in the last requested state.
+         *
+         * @param expanded the state the drop down settled in
+         */
+        void onStateReached(boolean expanded);
+    }
+
+    /**
+     * Binds a model to the views of a {@link DropDownView}.
+     *
+     * @param <T> type of your model
+     * @see #bind(Object, DropDownBinder, boolean)
+     */
+    public interface DropDownBinder<T> {
+        /**
+         * Called on the main thread to display the model in the header view.
+         *
+         * @param headerView your header view
+         * @param model      the model to display
+         */
+        void onBindHeaderView(@NonNull View headerView, @NonNull T model);
+
+        /**
+         * Called on the main thread to display the model in the expanded view, also when the
+         * expanded view is created after the model was bound.
+         *
+         * @param expandedView your expanded view
+         * @param model        the model to display
+         */
+        void onBindExpandedView(@NonNull View expandedView, @NonNull T model);
+    }
+
+    /**
+     * A listener for the performance of expands and collapses, to send to your own telemetry.
+     *
+     * @see #setDropDownPerformanceListener(DropDownPerformanceListener)
+     */
+    public interface DropDownPerformanceListener {
+        /**
+         * Called on the main thread when an expand or collapse ends or is interrupted.
+         *
+         * @param stats the numbers for that expand or collapse, reused for the next report
+         */
+        void onAnimationStats(@NonNull DropDownAnimationStats stats);
+    }
+
+    /**
+     * Lazily creates the expanded view of a {@link DropDownView}.
+     *
+     * @see #setExpandedViewProvider(ExpandedViewProvider)
+     */
+    public interface ExpandedViewProvider {
+        /**
+         * Called on the main thread when the expanded view is first needed.
+         *
+         * @param parent the container the expanded view will be added to, for layout params only
+         * @return your expanded view, not yet attached to a parent
+         */
+        @NonNull
+        View onCreateExpandedView(@NonNull ViewGroup parent);
+    }
+
+    /**
+     * A listener notified when an expanded view set with {@link #setExpandedView(int, OnExpandedViewReadyListener)}
+     * has been inflated and attached.
+     */
+    public interface OnExpandedViewReadyListener {
+        /**
+         * Called on the main thread right after the inflated view was added to the drop down.
+         *
+         * @param expandedView the inflated expanded view
+         */
+        void onExpandedViewReady(@NonNull View expandedView);
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.res.Resources;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.v4.content.ContextCompat;
+import android.view.ViewConfiguration;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Default values of {@link DropDownView} resolved once per theme, so creating many drop downs
+ * doesn't look up the same resources again. Only used on the main thread.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+final class DropDownViewDefaults {
+
+    private static final Map<Resources.Theme, DropDownViewDefaults> CACHE = new WeakHashMap<>();
+
+    @ColorInt
+    final int backgroundColor;
+    @ColorInt
+    final int overlayColor;
+    final int touchSlop;
+    final int minimumFlingVelocity;
+    final boolean isLowRamDevice;
+
+    private DropDownViewDefaults(@NonNull Context context) {
+        backgroundColor = ContextCompat.getColor(context, R.color.dDVColorPrimary);
+        overlayColor = ContextCompat.getColor(context, R.color.dDVTransparentGray);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        touchSlop = viewConfiguration.getScaledTouchSlop();
+        minimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        isLowRamDevice = activityManager != null && activityManager.isLowRamDevice();
+    }
+
+    @NonNull
+    static DropDownViewDefaults get(@NonNull Context context) {
+        Resources.Theme theme = context.getTheme();
+        DropDownViewDefaults defaults = CACHE.get(theme);
+        if (defaults == null) {
+            defaults = new DropDownViewDefaults(context);
+            CACHE.put(theme, defaults);
+        }
+        return defaults;
+    }
+}
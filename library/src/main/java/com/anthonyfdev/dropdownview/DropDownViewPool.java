@@ -0,0 +1,91 @@
+/*
+ * Apache DropDownView
+ * Copyright 2017 The Apache Software Foundation
+ *
+ * This product includes software developed at
+ * The Apache Software Foundation (http://www.apache.org/).
+ */
+
+package com.anthonyfdev.dropdownview;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+
+/**
+ * Creates {@link DropDownView}s ahead of time while the main thread is idle, for screens that
+ * create many of them at once. Views are created one per idle pass, so prefilling never blocks a
+ * frame for long. Only use it on the main thread.
+ * <p>
+ * Pooled views are created without XML attributes, configure them with their setters after
+ * {@link #acquire()}.
+ *
+ * @author Anthony Fermin (Fuzz)
+ */
+public class DropDownViewPool {
+
+    private final Context context;
+    private final int size;
+    private final ArrayDeque<DropDownView> views;
+    private boolean isPrefillScheduled;
+
+    /**
+     * @param context the context the views are created with, usually your activity so they get its theme
+     * @param size    how many views to keep ready
+     */
+    public DropDownViewPool(@NonNull Context context, int size) {
+        this.context = context;
+        this.size = size;
+        views = new ArrayDeque<>(size);
+    }
+
+    /**
+     * Fills the pool up to its size once the main thread is idle. Call it again after acquiring
+     * views to refill it.
+     */
+    public void prefill() {
+        if (!isPrefillScheduled && views.size() < size) {
+            isPrefillScheduled = true;
+            Looper.myQueue().addIdleHandler(prefillIdleHandler);
+        }
+    }
+
+    /**
+     * @return a pooled view, or a new one if the pool is empty.
+     */
+    @NonNull
+    public DropDownView acquire() {
+        DropDownView view = views.poll();
+        return view != null ? view : new DropDownView(context);
+    }
+
+    /**
+     * @return how many views are ready to be acquired.
+     */
+    public int getAvailableCount() {
+        return views.size();
+    }
+
+    /**
+     * Drops the pooled views and stops prefilling.
+     */
+    public void clear() {
+        Looper.myQueue().removeIdleHandler(prefillIdleHandler);
+        isPrefillScheduled = false;
+        views.clear();
+    }
+
+    private final MessageQueue.IdleHandler prefillIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            if (views.size() < size) {
+                views.add(new DropDownView(context));
+            }
+            isPrefillScheduled = views.size() < size;
+            return isPrefillScheduled;
+        }
+    };
+}